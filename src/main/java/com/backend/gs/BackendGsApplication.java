@@ -2,10 +2,12 @@ package com.backend.gs;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {
         org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration.class
 })
+@EnableScheduling
 public class BackendGsApplication {
 
     public static void main(String[] args) {
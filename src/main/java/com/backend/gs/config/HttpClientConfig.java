@@ -0,0 +1,64 @@
+package com.backend.gs.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HttpClient único para todas as chamadas às Lambdas.
+ * Reaproveita conexões (keep-alive), sessões TLS e a thread de seletor entre requisições,
+ * em vez de criar um cliente novo a cada chamada.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${lambda.http.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    @Value("${lambda.http.max-threads:16}")
+    private int maxThreads;
+
+    @Value("${lambda.http.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ExecutorService executor;
+
+    @Bean
+    public HttpClient lambdaHttpClient() {
+        // Pool próprio e limitado; não é exposto como bean para não substituir o executor padrão do Spring
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "lambda-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Fila limitada; cheia, a tarefa roda na thread que a submeteu (seletor do HttpClient ou
+        // quem completou o future), pois descartar tarefas internas do HttpClient travaria respostas
+        executor = new ThreadPoolExecutor(maxThreads, maxThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2) // cai para HTTP/1.1 quando o servidor não suporta
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
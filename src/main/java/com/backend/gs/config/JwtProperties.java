@@ -9,6 +9,7 @@ public class JwtProperties {
 
     private String secret;
     private long expiration;
+    private int claimsCacheMaxSize = 10000;
 
     public String getSecret() {
         return secret;
@@ -25,5 +26,12 @@ public class JwtProperties {
     public void setExpiration(long expiration) {
         this.expiration = expiration;
     }
-}
 
+    public int getClaimsCacheMaxSize() {
+        return claimsCacheMaxSize;
+    }
+
+    public void setClaimsCacheMaxSize(int claimsCacheMaxSize) {
+        this.claimsCacheMaxSize = claimsCacheMaxSize;
+    }
+}
@@ -5,10 +5,15 @@ import com.backend.gs.dto.LoginRequest;
 import com.backend.gs.dto.RegisterRequest;
 import com.backend.gs.service.AuthService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
@@ -21,20 +26,34 @@ public class AuthController {
     }
 
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        AuthResponse response = authService.register(request);
-
-        return response.isSuccess()
-                ? ResponseEntity.status(HttpStatus.CREATED).body(response)
-                : ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
+        return authService.register(request)
+                .thenApply(response -> response.isSuccess()
+                        ? ResponseEntity.status(HttpStatus.CREATED).body(response)
+                        : ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response))
+                .exceptionally(this::overloaded);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        AuthResponse response = authService.login(request);
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+        return authService.login(request)
+                .thenApply(response -> response.isSuccess()
+                        ? ResponseEntity.ok(response)
+                        : ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response))
+                .exceptionally(this::overloaded);
+    }
 
-        return response.isSuccess()
-                ? ResponseEntity.ok(response)
-                : ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    /**
+     * Pool do BCrypt lotado: 503 com Retry-After. Outros erros seguem para o tratamento padrão (500).
+     */
+    private ResponseEntity<AuthResponse> overloaded(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof RejectedExecutionException) {
+            System.err.println("⚠️ Autenticação sobrecarregada: pool do BCrypt cheio");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new AuthResponse("Serviço de autenticação sobrecarregado, tente novamente", false));
+        }
+        throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(cause);
     }
 }
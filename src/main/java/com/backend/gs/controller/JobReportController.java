@@ -5,20 +5,37 @@ import com.backend.gs.dto.GenerateUploadUrlsRequest;
 import com.backend.gs.dto.GenerateUploadUrlsResponse;
 import com.backend.gs.dto.JobReportRequest;
 import com.backend.gs.dto.JobReportResponse;
+import com.backend.gs.dto.JobReportStatusBatchRequest;
 import com.backend.gs.dto.JobReportStatusResponse;
 import com.backend.gs.dto.PresignedUrlResponse;
 import com.backend.gs.dto.PresignedUploadUrlRequest;
 import com.backend.gs.dto.PresignedUploadUrlResponse;
 import com.backend.gs.dto.ReportReadyCallback;
+import com.backend.gs.model.AuthenticatedUser;
+import com.backend.gs.model.JobReportStatus;
+import com.backend.gs.service.CallbackInboxService;
+import com.backend.gs.service.JobReportExportService;
 import com.backend.gs.service.JobReportService;
-import com.backend.gs.service.JwtService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.backend.gs.service.JobStatusLongPollService;
+import com.backend.gs.service.JobStatusStreamService;
+import com.backend.gs.service.LambdaClient;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.net.URI;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,30 +45,43 @@ import java.util.Map;
 public class JobReportController {
 
     private final JobReportService service;
-    private final JwtService jwtService;
+    private final JobStatusStreamService statusStreamService;
+    private final JobStatusLongPollService longPollService;
+    private final JobReportExportService exportService;
+    private final CallbackInboxService callbackInboxService;
 
-    public JobReportController(JobReportService service, JwtService jwtService) {
+    public JobReportController(JobReportService service, JobStatusStreamService statusStreamService,
+                               JobStatusLongPollService longPollService, JobReportExportService exportService,
+                               CallbackInboxService callbackInboxService) {
         this.service = service;
-        this.jwtService = jwtService;
+        this.statusStreamService = statusStreamService;
+        this.longPollService = longPollService;
+        this.exportService = exportService;
+        this.callbackInboxService = callbackInboxService;
     }
 
+    /**
+     * Com "Prefer: respond-async" (ou ?async=true) responde 202 logo após gravar o job, sem
+     * esperar a Lambda; o session_id aparece depois em GET /status/{id} (header Location).
+     */
     @PostMapping("/create")
-    public ResponseEntity<?> create(@RequestBody @Valid JobReportRequest request, HttpServletRequest httpRequest) {
+    public ResponseEntity<?> create(@RequestBody @Valid JobReportRequest request,
+                                    @RequestHeader(value = "Prefer", required = false) String prefer,
+                                    @RequestParam(defaultValue = "false") boolean async,
+                                    @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            // Extrai o token JWT do header Authorization
-            String authHeader = httpRequest.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Authorization token is required");
-            }
-
-            String token = authHeader.substring(7);
-            Long userId = jwtService.extractUserId(token);
-            
-            if (userId == null) {
+            if (user == null || user.getId() == null) {
                 return ResponseEntity.status(401).body("Invalid or expired token");
             }
 
-            JobReportResponse response = service.createJobReport(request, userId);
+            boolean respondAsync = async || prefersRespondAsync(prefer);
+            JobReportResponse response = service.createJobReport(request, user.getId(), respondAsync);
+            if (respondAsync) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header("Preference-Applied", "respond-async")
+                        .location(URI.create("/api/jobReport/status/" + response.getJobReportId()))
+                        .body(response);
+            }
             return ResponseEntity.status(201).body(response);
         } catch (Exception e) {
             e.printStackTrace();
@@ -59,6 +89,40 @@ public class JobReportController {
         }
     }
 
+    /**
+     * Jobs do usuário autenticado, do mais recente para o mais antigo, paginados por cursor.
+     */
+    @GetMapping("/mine")
+    public ResponseEntity<?> listMine(@RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer limit,
+                                      @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            if (user == null || user.getId() == null) {
+                return ResponseEntity.status(401).body("Invalid or expired token");
+            }
+
+            return ResponseEntity.ok(service.listUserJobReports(user.getId(), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            System.err.println("❌ ERRO ao listar job reports: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    private static boolean prefersRespondAsync(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            if (preference.trim().toLowerCase().startsWith("respond-async")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -75,39 +139,30 @@ public class JobReportController {
         throw new UnsupportedOperationException("Método getJobReportDetails ainda não implementado.");
     }
 
+    /**
+     * Callbacks da Lambda: só gravam na CALLBACK_INBOX e respondem 202; a aplicação no job
+     * (session_id, áudios, relatório) é feita pelo CallbackInboxService em segundo plano.
+     */
     @PostMapping("/callback/audios-ready")
     public ResponseEntity<?> audiosReady(@RequestBody AudiosReadyCallback callback) {
         try {
-            System.out.println("=== CALLBACK AUDIOS-READY RECEBIDO ===");
-            System.out.println("Job Report ID: " + callback.getJobReportId());
-            System.out.println("Session ID: " + callback.getSessionId());
-            System.out.println("Audio Files: " + callback.getAudioFiles());
-            
             Long jobReportId = callback.getJobReportId();
             if (jobReportId == null) {
                 System.out.println("ERRO: job_report_id é null");
                 return ResponseEntity.badRequest().body("job_report_id is required");
             }
 
-            // Atualiza session_id se fornecido
-            if (callback.getSessionId() != null) {
-                System.out.println("Atualizando session_id para job report " + jobReportId);
-                service.updateSessionId(jobReportId, callback.getSessionId());
-            }
-
-            // Salva os paths dos áudios
-            if (callback.getAudioFiles() != null && !callback.getAudioFiles().isEmpty()) {
-                System.out.println("Salvando " + callback.getAudioFiles().size() + " áudios para job report " + jobReportId);
-                service.saveAudioPaths(jobReportId, callback.getAudioFiles());
-                System.out.println("Áudios salvos com sucesso!");
-            } else {
-                System.out.println("AVISO: Nenhum áudio recebido no callback");
-            }
+            int audioCount = callback.getAudioFiles() != null ? callback.getAudioFiles().size() : 0;
+            System.out.println("📥 Callback audios-ready recebido: job " + jobReportId + ", " + audioCount + " áudio(s)");
 
-            System.out.println("=== CALLBACK PROCESSADO COM SUCESSO ===");
-            return ResponseEntity.ok().build();
+            callbackInboxService.enqueueAudiosReady(callback);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        } catch (CallbackInboxService.InboxFullException e) {
+            return callbackQueueFull(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(e.getMessage());
         } catch (Exception e) {
-            System.err.println("ERRO ao processar callback: " + e.getMessage());
+            System.err.println("ERRO ao registrar callback: " + e.getMessage());
             e.printStackTrace();
             return ResponseEntity.status(500).body("Error processing callback: " + e.getMessage());
         }
@@ -121,37 +176,56 @@ public class JobReportController {
                 return ResponseEntity.badRequest().body("job_report_id is required");
             }
 
-            System.out.println("📥 Recebido callback de relatório pronto:");
-            System.out.println("   Job Report ID: " + jobReportId);
-            System.out.println("   Session ID: " + callback.getSessionId());
-            System.out.println("   Report URL: " + callback.getReportUrl());
-
-            // Atualiza session_id se fornecido
-            if (callback.getSessionId() != null) {
-                service.updateSessionId(jobReportId, callback.getSessionId());
-            }
-
-            // Salva URL do relatório
-            if (callback.getReportUrl() != null) {
-                service.updateReportUrl(jobReportId, callback.getReportUrl());
-                System.out.println("✅ Report URL salva no banco!");
-            }
+            System.out.println("📥 Callback report-ready recebido: job " + jobReportId + ", report " + callback.getReportUrl());
 
-            return ResponseEntity.ok().build();
+            callbackInboxService.enqueueReportReady(callback);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        } catch (CallbackInboxService.InboxFullException e) {
+            return callbackQueueFull(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(e.getMessage());
         } catch (Exception e) {
-            System.err.println("❌ Erro ao processar callback: " + e.getMessage());
+            System.err.println("❌ Erro ao registrar callback: " + e.getMessage());
             e.printStackTrace();
             return ResponseEntity.status(500).body("Error processing callback: " + e.getMessage());
         }
     }
 
+    private ResponseEntity<?> callbackQueueFull(CallbackInboxService.InboxFullException e) {
+        System.err.println("⚠️ Callback recusado: " + e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(e.getMessage());
+    }
+
     @GetMapping("/status/{id}")
-    public ResponseEntity<JobReportStatusResponse> getStatus(@PathVariable Long id) {
+    public ResponseEntity<JobReportStatusResponse> getStatus(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
+            if (user == null || user.getId() == null) {
+                return ResponseEntity.status(401).build();
+            }
+
             System.out.println("🔍 GET /status/" + id);
+            // Verificação barata de versão (e de dono) antes de montar a resposta (áudios + presign)
+            String etag = service.getStatusETag(id, user.getId());
+            if (etag == null) {
+                System.err.println("❌ Job report não encontrado: " + id);
+                return ResponseEntity.notFound().build();
+            }
+            if (matchesETag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
             JobReportStatusResponse status = service.getStatus(id);
             System.out.println("✅ Status retornado: " + status.getStatus());
-            return ResponseEntity.ok(status);
+            if (hasPresignErrors(status.getAudioUrls())) {
+                // Resposta parcial: sem ETag, para o cliente não revalidar (304) uma lista com URLs faltando
+                return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(status);
+            }
+            return ResponseEntity.ok().eTag(etag).body(status);
         } catch (IllegalArgumentException e) {
             System.err.println("❌ Job report não encontrado: " + id);
             e.printStackTrace();
@@ -163,19 +237,199 @@ public class JobReportController {
         }
     }
 
+    /**
+     * Status de vários jobs do usuário numa única requisição (dashboard), no mesmo formato do
+     * /status/{id}; áudios que não ficam prontos no prazo do presign voltam com error.
+     */
+    @PostMapping("/status:batch")
+    public ResponseEntity<?> getStatusBatch(@RequestBody JobReportStatusBatchRequest request,
+                                            @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            if (user == null || user.getId() == null) {
+                return ResponseEntity.status(401).body("Invalid or expired token");
+            }
+
+            List<Long> ids = request.getJobReportIds() != null ? request.getJobReportIds() : List.of();
+            System.out.println("🔍 POST /status:batch (" + ids.size() + " ids)");
+            return ResponseEntity.ok(service.getStatuses(ids, user.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            System.err.println("❌ ERRO ao buscar status em lote: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    /**
+     * Variante long-poll do status: ?waitFor=<status>&timeout=<segundos>.
+     * Responde assim que o job atingir (ou passar de) waitFor, ou com o status atual quando o tempo acabar.
+     */
+    @GetMapping(value = "/status/{id}", params = "waitFor")
+    public DeferredResult<ResponseEntity<JobReportStatusResponse>> waitForStatus(
+            @PathVariable Long id,
+            @RequestParam String waitFor,
+            @RequestParam(defaultValue = "30") long timeout,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        if (user == null || user.getId() == null) {
+            return immediate(ResponseEntity.status(401).build());
+        }
+
+        JobReportStatus target;
+        try {
+            target = JobReportStatus.valueOf(waitFor.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return immediate(ResponseEntity.badRequest().build());
+        }
+
+        try {
+            service.checkOwnership(id, user.getId());
+            return longPollService.waitFor(id, target, timeout);
+        } catch (IllegalArgumentException e) {
+            return immediate(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            System.err.println("❌ ERRO no long-poll de status: " + e.getMessage());
+            return immediate(ResponseEntity.status(500).build());
+        }
+    }
+
+    private DeferredResult<ResponseEntity<JobReportStatusResponse>> immediate(
+            ResponseEntity<JobReportStatusResponse> response) {
+        DeferredResult<ResponseEntity<JobReportStatusResponse>> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
+    }
+
+    /**
+     * Stream SSE com as transições de status do job (PENDING -> AUDIOS_READY -> REPORT_READY).
+     * Envia o status atual ao conectar e cada transição assim que o callback chega.
+     * Reconexões com Last-Event-ID recebem só o que ainda não foi visto; 204 quando já terminou.
+     */
+    @GetMapping(value = "/status/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStatus(
+            @PathVariable Long id,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            if (user == null || user.getId() == null) {
+                return ResponseEntity.status(401).build();
+            }
+
+            service.checkOwnership(id, user.getId());
+            SseEmitter emitter = statusStreamService.open(id, lastEventId);
+            if (emitter == null) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            System.err.println("⚠️ " + e.getMessage());
+            return ResponseEntity.status(503).build();
+        } catch (Exception e) {
+            System.err.println("❌ ERRO ao abrir stream de status: " + e.getMessage());
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    /**
+     * Export de todos os job reports com seus áudios em NDJSON (application/x-ndjson).
+     * Expõe dados de todos os usuários: restrito a ROLE_ADMIN (ver SecurityConfig).
+     * As linhas são escritas na resposta página a página.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public void export(HttpServletResponse response) throws IOException {
+        try {
+            exportService.acquire();
+        } catch (IllegalStateException e) {
+            System.err.println("⚠️ " + e.getMessage());
+            response.sendError(503);
+            return;
+        }
+
+        try {
+            System.out.println("📤 Export NDJSON iniciado");
+            response.setContentType("application/x-ndjson");
+            response.setCharacterEncoding("UTF-8");
+            long count = exportService.exportTo(response.getOutputStream());
+            System.out.println("✅ Export NDJSON concluído: " + count + " job(s)");
+        } catch (SQLException e) {
+            System.err.println("❌ ERRO no export: " + e.getMessage());
+            e.printStackTrace();
+            // Se nada foi enviado ainda, responde 500; senão o cliente recebe o stream truncado
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(500);
+            }
+        } finally {
+            exportService.release();
+        }
+    }
+
     @GetMapping("/audios/{id}/presigned-urls")
-    public ResponseEntity<List<PresignedUrlResponse>> getPresignedUrls(@PathVariable Long id) {
+    public ResponseEntity<List<PresignedUrlResponse>> getPresignedUrls(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
+            if (user == null || user.getId() == null) {
+                return ResponseEntity.status(401).build();
+            }
+
+            String etag = service.getStatusETag(id, user.getId());
+            if (etag == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (matchesETag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
             JobReportStatusResponse status = service.getStatus(id);
-            if (status.getAudioUrls() != null) {
-                return ResponseEntity.ok(status.getAudioUrls());
+            List<PresignedUrlResponse> audioUrls = status.getAudioUrls() != null ? status.getAudioUrls() : List.of();
+            if (hasPresignErrors(audioUrls)) {
+                return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(audioUrls);
             }
-            return ResponseEntity.ok(List.of());
+            return ResponseEntity.ok().eTag(etag).body(audioUrls);
         } catch (Exception e) {
             return ResponseEntity.status(500).build();
         }
     }
 
+    /**
+     * true se algum áudio ficou sem presigned URL (item com error); essas respostas não levam ETag.
+     */
+    private boolean hasPresignErrors(List<PresignedUrlResponse> audioUrls) {
+        if (audioUrls == null) {
+            return false;
+        }
+        for (PresignedUrlResponse audioUrl : audioUrls) {
+            if (audioUrl.getError() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compara o If-None-Match (lista de ETags, fracas ou fortes, ou "*") com o ETag atual.
+     */
+    private boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String quoted = "\"" + etag + "\"";
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(quoted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @PostMapping("/presigned-upload-url")
     public ResponseEntity<PresignedUploadUrlResponse> getPresignedUploadUrl(
             @RequestBody PresignedUploadUrlRequest request) {
@@ -194,6 +448,9 @@ public class JobReportController {
                     filename
             );
             return ResponseEntity.ok(response);
+        } catch (LambdaClient.LambdaUnavailableException e) {
+            System.err.println("⚠️ " + e.getMessage());
+            return ResponseEntity.status(503).build();
         } catch (Exception e) {
             return ResponseEntity.status(500).build();
         }
@@ -218,6 +475,12 @@ public class JobReportController {
             System.out.println("Total URLs: " + response.getUploadUrls().size());
             
             return ResponseEntity.ok(response);
+        } catch (LambdaClient.LambdaUnavailableException e) {
+            System.err.println("⚠️ " + e.getMessage());
+            return ResponseEntity.status(503).body(Map.of(
+                "error", "Upload URL service temporarily unavailable",
+                "message", e.getMessage()
+            ));
         } catch (Exception e) {
             System.err.println("❌ Erro ao gerar URLs: " + e.getMessage());
             e.printStackTrace();
@@ -1,10 +1,9 @@
 package com.backend.gs.controller;
 
-import com.backend.gs.dao.UserDao;
 import com.backend.gs.dto.AuthResponse;
-import com.backend.gs.model.User;
+import com.backend.gs.model.AuthenticatedUser;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -12,24 +11,13 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "*")
 public class UserController {
 
-    private final UserDao userDao;
-
-    public UserController(UserDao userDao) {
-        this.userDao = userDao;
-    }
-
     @GetMapping("/profile")
-    public ResponseEntity<?> getProfile(Authentication authentication) {
-        String username = authentication.getName();
-
-        var optionalUser = userDao.findByUsername(username);
-
-        if (optionalUser.isEmpty()) {
-            return ResponseEntity.status(404).body("Usuário não encontrado.");
+    public ResponseEntity<?> getProfile(@AuthenticationPrincipal AuthenticatedUser user) {
+        if (user == null) {
+            return ResponseEntity.status(401).body("Authorization token is required");
         }
 
-        User user = optionalUser.get();
-
+        // Id e username vêm das claims do token, já verificadas no filtro
         AuthResponse response = new AuthResponse(
                 "Perfil carregado com sucesso",
                 true,
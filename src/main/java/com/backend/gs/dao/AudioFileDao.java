@@ -7,7 +7,10 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class AudioFileDao {
@@ -15,38 +18,47 @@ public class AudioFileDao {
     @Autowired
     private OracleConnection oracleConnection;
 
-    public AudioFile save(long jobReportId, String s3Path, String fileName) throws SQLException {
-        String sql = "INSERT INTO AUDIO_FILES (ID_JOB_REPORT, S3_PATH, FILE_NAME, CREATED_AT) VALUES (?, ?, ?, CURRENT_TIMESTAMP)";
+    /**
+     * Grava todos os áudios de um callback em um único batch JDBC e uma única transação:
+     * ou todos são gravados, ou nenhum. Áudios já gravados são ignorados pela chave única
+     * (ID_JOB_REPORT, S3_PATH) com o hint IGNORE_ROW_ON_DUPKEY_INDEX: ao contrário de um MERGE,
+     * dois callbacks simultâneos com o mesmo áudio não geram ORA-00001 (a segunda sessão espera
+     * a primeira e descarta a linha), então callbacks repetidos nunca derrubam o batch.
+     */
+    public int saveAll(long jobReportId, List<String> s3Paths) throws SQLException {
+        String sql = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(AUDIO_FILES UK_AUDIO_FILES_JOB_PATH) */ " +
+                "INTO AUDIO_FILES (ID_JOB_REPORT, S3_PATH, FILE_NAME, CREATED_AT) VALUES (?, ?, ?, CURRENT_TIMESTAMP)";
+
+        if (s3Paths == null || s3Paths.isEmpty()) {
+            return 0;
+        }
 
-        try (Connection conn = oracleConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = oracleConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                // Remove repetições dentro do próprio callback antes de montar o batch
+                for (String s3Path : new LinkedHashSet<>(s3Paths)) {
+                    stmt.setLong(1, jobReportId);
+                    stmt.setString(2, s3Path);
+                    stmt.setString(3, extractFileName(s3Path));
+                    stmt.addBatch();
+                }
 
-            stmt.setLong(1, jobReportId);
-            stmt.setString(2, s3Path);
-            stmt.setString(3, fileName);
-
-            stmt.executeUpdate();
-
-            // Busca o ID do áudio recém-criado (Oracle não suporta getGeneratedKeys da mesma forma)
-            AudioFile audioFile = new AudioFile();
-            audioFile.setIdJobReport(jobReportId);
-            audioFile.setS3Path(s3Path);
-            audioFile.setFileName(fileName);
-            
-            // Busca o ID gerado
-            try (PreparedStatement selectStmt = conn.prepareStatement(
-                    "SELECT ID_AUDIO_FILE, CREATED_AT FROM AUDIO_FILES WHERE ID_JOB_REPORT = ? AND S3_PATH = ? ORDER BY CREATED_AT DESC FETCH FIRST 1 ROWS ONLY")) {
-                selectStmt.setLong(1, jobReportId);
-                selectStmt.setString(2, s3Path);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        audioFile.setIdAudioFile(rs.getLong("ID_AUDIO_FILE"));
-                        audioFile.setCreatedAt(rs.getTimestamp("CREATED_AT"));
-                    }
+                int inserted = 0;
+                for (int count : stmt.executeBatch()) {
+                    // SUCCESS_NO_INFO (-2) conta como gravado; 0 = já existia
+                    inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
                 }
+                conn.commit();
+                return inserted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
-
-            return audioFile;
         }
     }
 
@@ -76,6 +88,42 @@ public class AudioFileDao {
         return list;
     }
 
+    /**
+     * Áudios de vários jobs numa única consulta (IN-list), agrupados por job.
+     */
+    public Map<Long, List<AudioFile>> findByJobReportIds(List<Long> jobReportIds) throws SQLException {
+        Map<Long, List<AudioFile>> result = new LinkedHashMap<>();
+        if (jobReportIds.isEmpty()) {
+            return result;
+        }
+
+        String sql = "SELECT ID_AUDIO_FILE, ID_JOB_REPORT, S3_PATH, FILE_NAME, CREATED_AT FROM AUDIO_FILES " +
+                "WHERE ID_JOB_REPORT IN (" + JobReportDao.placeholders(jobReportIds.size()) + ") " +
+                "ORDER BY ID_JOB_REPORT, CREATED_AT";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < jobReportIds.size(); i++) {
+                stmt.setLong(i + 1, jobReportIds.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    AudioFile audioFile = new AudioFile();
+                    audioFile.setIdAudioFile(rs.getLong("ID_AUDIO_FILE"));
+                    audioFile.setIdJobReport(rs.getLong("ID_JOB_REPORT"));
+                    audioFile.setS3Path(rs.getString("S3_PATH"));
+                    audioFile.setFileName(rs.getString("FILE_NAME"));
+                    audioFile.setCreatedAt(rs.getTimestamp("CREATED_AT"));
+                    result.computeIfAbsent(audioFile.getIdJobReport(), k -> new ArrayList<>()).add(audioFile);
+                }
+            }
+        }
+
+        return result;
+    }
+
     public boolean deleteByJobReportId(long jobReportId) throws SQLException {
         String sql = "DELETE FROM AUDIO_FILES WHERE ID_JOB_REPORT = ?";
 
@@ -88,5 +136,8 @@ public class AudioFileDao {
             return rows > 0;
         }
     }
-}
 
+    private String extractFileName(String s3Path) {
+        return s3Path.substring(s3Path.lastIndexOf('/') + 1);
+    }
+}
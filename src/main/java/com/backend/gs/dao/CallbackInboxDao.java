@@ -0,0 +1,185 @@
+package com.backend.gs.dao;
+
+import com.backend.gs.database.OracleConnection;
+import com.backend.gs.model.CallbackInboxEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acesso à CALLBACK_INBOX. Assim como na LAMBDA_OUTBOX, os horários são calculados pelo banco
+ * e as reservas usam lease, para que várias instâncias do worker dividam a fila sem conflito.
+ */
+@Repository
+public class CallbackInboxDao {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private OracleConnection oracleConnection;
+
+    public long insert(long jobReportId, String callbackType, String payload) throws SQLException {
+        String sql = "INSERT INTO CALLBACK_INBOX (ID_JOB_REPORT, CALLBACK_TYPE, PAYLOAD) VALUES (?, ?, ?)";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, new String[]{"ID_CALLBACK"})) {
+
+            stmt.setLong(1, jobReportId);
+            stmt.setString(2, callbackType);
+            stmt.setString(3, payload);
+
+            stmt.executeUpdate();
+
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getLong(1);
+                }
+            }
+            throw new SQLException("ID_CALLBACK não retornado no insert");
+        }
+    }
+
+    public int countPending() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM CALLBACK_INBOX WHERE STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Reserva até limit callbacks vencidos (FOR UPDATE SKIP LOCKED), incrementando ATTEMPTS e
+     * empurrando NEXT_ATTEMPT_AT para daqui a leaseMs, na mesma transação. Os mais atrasados
+     * primeiro, buscando só limit linhas do cursor ordenado (ver OutboxDao.claimDue).
+     */
+    public List<CallbackInboxEntry> claimDue(int limit, long leaseMs) throws SQLException {
+        String selectSql = "SELECT ID_CALLBACK, ID_JOB_REPORT, CALLBACK_TYPE, PAYLOAD, ATTEMPTS FROM CALLBACK_INBOX " +
+                "WHERE STATUS = 'PENDING' AND NEXT_ATTEMPT_AT <= CURRENT_TIMESTAMP " +
+                "ORDER BY NEXT_ATTEMPT_AT, ID_CALLBACK FOR UPDATE SKIP LOCKED";
+        String leaseSql = "UPDATE CALLBACK_INBOX SET ATTEMPTS = ATTEMPTS + 1, " +
+                "NEXT_ATTEMPT_AT = CURRENT_TIMESTAMP + NUMTODSINTERVAL(?, 'SECOND') WHERE ID_CALLBACK = ?";
+
+        List<CallbackInboxEntry> claimed = new ArrayList<>();
+
+        try (Connection conn = oracleConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement select = conn.prepareStatement(selectSql);
+                 PreparedStatement lease = conn.prepareStatement(leaseSql)) {
+
+                select.setFetchSize(limit);
+
+                try (ResultSet rs = select.executeQuery()) {
+                    while (claimed.size() < limit && rs.next()) {
+                        CallbackInboxEntry entry = new CallbackInboxEntry();
+                        entry.setIdCallback(rs.getLong("ID_CALLBACK"));
+                        entry.setIdJobReport(rs.getLong("ID_JOB_REPORT"));
+                        entry.setCallbackType(rs.getString("CALLBACK_TYPE"));
+                        entry.setPayload(rs.getString("PAYLOAD"));
+                        entry.setAttempts(rs.getInt("ATTEMPTS") + 1);
+                        claimed.add(entry);
+                    }
+                }
+
+                for (CallbackInboxEntry entry : claimed) {
+                    lease.setDouble(1, leaseMs / 1000.0);
+                    lease.setLong(2, entry.getIdCallback());
+                    lease.addBatch();
+                }
+                if (!claimed.isEmpty()) {
+                    lease.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        return claimed;
+    }
+
+    public void markApplied(List<Long> ids) throws SQLException {
+        String sql = "UPDATE CALLBACK_INBOX SET STATUS = 'APPLIED', APPLIED_AT = CURRENT_TIMESTAMP, LAST_ERROR = NULL " +
+                "WHERE ID_CALLBACK = ? AND STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Long id : ids) {
+                stmt.setLong(1, id);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Devolve os callbacks para a fila, com nova tentativa após delayMs.
+     */
+    public void reschedule(List<Long> ids, long delayMs, String error) throws SQLException {
+        String sql = "UPDATE CALLBACK_INBOX SET NEXT_ATTEMPT_AT = CURRENT_TIMESTAMP + NUMTODSINTERVAL(?, 'SECOND'), " +
+                "LAST_ERROR = ? WHERE ID_CALLBACK = ? AND STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Long id : ids) {
+                stmt.setDouble(1, delayMs / 1000.0);
+                stmt.setString(2, truncate(error));
+                stmt.setLong(3, id);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Desiste dos callbacks (tentativas esgotadas ou payload inválido); ficam registrados para análise manual.
+     */
+    public void markFailed(List<Long> ids, String error) throws SQLException {
+        String sql = "UPDATE CALLBACK_INBOX SET STATUS = 'FAILED', LAST_ERROR = ? WHERE ID_CALLBACK = ? AND STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Long id : ids) {
+                stmt.setString(1, truncate(error));
+                stmt.setLong(2, id);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Remove callbacks já aplicados há mais de retentionHours horas.
+     */
+    public int purgeApplied(long retentionHours) throws SQLException {
+        String sql = "DELETE FROM CALLBACK_INBOX WHERE STATUS = 'APPLIED' " +
+                "AND APPLIED_AT < CURRENT_TIMESTAMP - NUMTODSINTERVAL(?, 'HOUR')";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, retentionHours);
+            return stmt.executeUpdate();
+        }
+    }
+
+    private String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
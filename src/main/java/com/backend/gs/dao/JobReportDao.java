@@ -1,25 +1,44 @@
 package com.backend.gs.dao;
 
 import com.backend.gs.database.OracleConnection;
+import com.backend.gs.model.AudioFile;
 import com.backend.gs.model.JobReport;
+import com.backend.gs.model.JobReportStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class JobReportDao {
 
+    private static final String SELECT_COLUMNS =
+            "SELECT ID_JOB_REPORT, ID_USER, COMPANY, TITLE, DESCRIPTION, SESSION_ID, REPORT_URL, " +
+            "STATUS, CREATED_AT, AUDIOS_READY_AT, REPORT_READY_AT FROM JOB_REPORT";
+
     @Autowired
     private OracleConnection oracleConnection;
 
     public JobReport save(JobReport jobReport) throws SQLException {
+        try (Connection conn = oracleConnection.getConnection()) {
+            return save(conn, jobReport);
+        }
+    }
+
+    /**
+     * Insere o job na conexão (e transação) do chamador, para gravar junto com outras tabelas.
+     */
+    public JobReport save(Connection conn, JobReport jobReport) throws SQLException {
         String sql = "INSERT INTO JOB_REPORT (ID_USER, COMPANY, TITLE, DESCRIPTION) VALUES (?, ?, ?, ?)";
 
-        try (Connection conn = oracleConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // O driver Oracle converte as colunas pedidas em RETURNING ... INTO, evitando um SELECT extra
+        try (PreparedStatement stmt = conn.prepareStatement(sql, new String[]{"ID_JOB_REPORT", "CREATED_AT"})) {
 
             stmt.setLong(1, jobReport.getIdUser());
             stmt.setString(2, jobReport.getCompany());
@@ -28,24 +47,20 @@ public class JobReportDao {
 
             stmt.executeUpdate();
 
-            // Busca o ID do job report recém-criado (Oracle não suporta getGeneratedKeys da mesma forma)
-            try (PreparedStatement selectStmt = conn.prepareStatement(
-                    "SELECT ID_JOB_REPORT FROM JOB_REPORT WHERE COMPANY = ? AND TITLE = ? ORDER BY ID_JOB_REPORT DESC FETCH FIRST 1 ROWS ONLY")) {
-                selectStmt.setString(1, jobReport.getCompany());
-                selectStmt.setString(2, jobReport.getTitle());
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                if (rs.next()) {
-                    jobReport.setIdJobReport(rs.getLong(1));
-                    }
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    jobReport.setIdJobReport(keys.getLong(1));
+                    jobReport.setCreatedAt(keys.getTimestamp(2));
                 }
             }
+            jobReport.setStatus(JobReportStatus.PENDING); // DEFAULT da coluna STATUS
 
             return jobReport;
         }
     }
 
     public JobReport findById(long id) throws SQLException {
-        String sql = "SELECT ID_JOB_REPORT, ID_USER, COMPANY, TITLE, DESCRIPTION, SESSION_ID FROM JOB_REPORT WHERE ID_JOB_REPORT = ?";
+        String sql = SELECT_COLUMNS + " WHERE ID_JOB_REPORT = ?";
 
         try (Connection conn = oracleConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -54,21 +69,261 @@ public class JobReportDao {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
+                    return mapJobReport(rs);
+                }
+            }
+
+            return null; // não encontrado
+        }
+    }
+
+    public List<JobReport> findAll() throws SQLException {
+        String sql = SELECT_COLUMNS;
+
+        List<JobReport> list = new ArrayList<>();
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                list.add(mapJobReport(rs));
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Recebe as linhas do export uma a uma, na ordem de ID_JOB_REPORT.
+     * audioFile é null quando o job não tem áudios.
+     */
+    @FunctionalInterface
+    public interface ExportRowHandler {
+        void handle(JobReport job, AudioFile audioFile) throws IOException;
+    }
+
+    /**
+     * Uma página do export: até jobLimit jobs com ID_JOB_REPORT > afterId, com seus áudios
+     * (LEFT JOIN), entregues ao handler na ordem do id. Cada página usa uma conexão própria,
+     * devolvida ao pool ao fim da consulta, de modo que um export longo nunca prende conexão.
+     * Não carrega DESCRIPTION (CLOB), que exigiria uma ida ao banco por linha.
+     */
+    public void exportPage(long afterId, int jobLimit, ExportRowHandler handler) throws SQLException, IOException {
+        String sql = "SELECT j.ID_JOB_REPORT, j.ID_USER, j.COMPANY, j.TITLE, j.SESSION_ID, j.REPORT_URL, " +
+                "j.STATUS, j.CREATED_AT, j.AUDIOS_READY_AT, j.REPORT_READY_AT, " +
+                "a.ID_AUDIO_FILE, a.S3_PATH, a.FILE_NAME, a.CREATED_AT AS AUDIO_CREATED_AT " +
+                "FROM (SELECT ID_JOB_REPORT, ID_USER, COMPANY, TITLE, SESSION_ID, REPORT_URL, STATUS, " +
+                "CREATED_AT, AUDIOS_READY_AT, REPORT_READY_AT FROM JOB_REPORT WHERE ID_JOB_REPORT > ? " +
+                "ORDER BY ID_JOB_REPORT FETCH FIRST ? ROWS ONLY) j " +
+                "LEFT JOIN AUDIO_FILES a ON a.ID_JOB_REPORT = j.ID_JOB_REPORT " +
+                "ORDER BY j.ID_JOB_REPORT, a.CREATED_AT, a.ID_AUDIO_FILE";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setLong(1, afterId);
+            stmt.setInt(2, jobLimit);
+            stmt.setFetchSize(jobLimit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
                     JobReport job = new JobReport();
                     job.setIdJobReport(rs.getLong("ID_JOB_REPORT"));
                     job.setIdUser(rs.getLong("ID_USER"));
                     job.setCompany(rs.getString("COMPANY"));
                     job.setTitle(rs.getString("TITLE"));
-                    job.setDescription(rs.getString("DESCRIPTION"));
                     job.setSessionId(rs.getString("SESSION_ID"));
-                    // Tenta ler REPORT_URL se existir
-                    try {
-                        job.setReportUrl(rs.getString("REPORT_URL"));
-                    } catch (SQLException e) {
-                        // Coluna ainda não existe, ignora
-                        job.setReportUrl(null);
+                    job.setReportUrl(rs.getString("REPORT_URL"));
+                    job.setStatus(JobReportStatus.valueOf(rs.getString("STATUS")));
+                    job.setCreatedAt(rs.getTimestamp("CREATED_AT"));
+                    job.setAudiosReadyAt(rs.getTimestamp("AUDIOS_READY_AT"));
+                    job.setReportReadyAt(rs.getTimestamp("REPORT_READY_AT"));
+
+                    AudioFile audioFile = null;
+                    long audioFileId = rs.getLong("ID_AUDIO_FILE");
+                    if (!rs.wasNull()) {
+                        audioFile = new AudioFile();
+                        audioFile.setIdAudioFile(audioFileId);
+                        audioFile.setIdJobReport(job.getIdJobReport());
+                        audioFile.setS3Path(rs.getString("S3_PATH"));
+                        audioFile.setFileName(rs.getString("FILE_NAME"));
+                        audioFile.setCreatedAt(rs.getTimestamp("AUDIO_CREATED_AT"));
                     }
-                    return job;
+
+                    handler.handle(job, audioFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Página de jobs do usuário, do mais recente para o mais antigo, por keyset em
+     * (ID_USER, ID_JOB_REPORT) — usa IDX_JOB_REPORT_USER e não depende do tamanho da tabela.
+     * beforeId é o último id da página anterior (null na primeira página).
+     * Não carrega DESCRIPTION (CLOB).
+     */
+    public List<JobReport> findPageByUser(long userId, Long beforeId, int limit) throws SQLException {
+        String sql = "SELECT ID_JOB_REPORT, ID_USER, COMPANY, TITLE, SESSION_ID, STATUS, CREATED_AT " +
+                "FROM JOB_REPORT WHERE ID_USER = ?" +
+                (beforeId != null ? " AND ID_JOB_REPORT < ?" : "") +
+                " ORDER BY ID_JOB_REPORT DESC FETCH FIRST ? ROWS ONLY";
+
+        List<JobReport> list = new ArrayList<>();
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            stmt.setLong(index++, userId);
+            if (beforeId != null) {
+                stmt.setLong(index++, beforeId);
+            }
+            stmt.setInt(index, limit);
+            stmt.setFetchSize(limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    JobReport job = new JobReport();
+                    job.setIdJobReport(rs.getLong("ID_JOB_REPORT"));
+                    job.setIdUser(rs.getLong("ID_USER"));
+                    job.setCompany(rs.getString("COMPANY"));
+                    job.setTitle(rs.getString("TITLE"));
+                    job.setSessionId(rs.getString("SESSION_ID"));
+                    job.setStatus(JobReportStatus.valueOf(rs.getString("STATUS")));
+                    job.setCreatedAt(rs.getTimestamp("CREATED_AT"));
+                    list.add(job);
+                }
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Status de vários jobs do usuário numa única consulta (IN-list). Carrega apenas as colunas
+     * necessárias para o status (sem DESCRIPTION). Ids inexistentes ou de outros usuários
+     * ficam fora do mapa.
+     */
+    public Map<Long, JobReport> findStatusesByIds(List<Long> ids, long userId) throws SQLException {
+        Map<Long, JobReport> result = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        String sql = "SELECT ID_JOB_REPORT, SESSION_ID, REPORT_URL, STATUS FROM JOB_REPORT " +
+                "WHERE ID_JOB_REPORT IN (" + placeholders(ids.size()) + ") AND ID_USER = ?";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setLong(i + 1, ids.get(i));
+            }
+            stmt.setLong(ids.size() + 1, userId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    JobReport job = new JobReport();
+                    job.setIdJobReport(rs.getLong("ID_JOB_REPORT"));
+                    job.setSessionId(rs.getString("SESSION_ID"));
+                    job.setReportUrl(rs.getString("REPORT_URL"));
+                    job.setStatus(JobReportStatus.valueOf(rs.getString("STATUS")));
+                    result.put(job.getIdJobReport(), job);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Status atual de vários jobs (sem filtro de usuário), em consultas IN de até 1000 ids.
+     * Ids inexistentes ficam fora do mapa.
+     */
+    public Map<Long, JobReportStatus> findStatuses(List<Long> ids) throws SQLException {
+        Map<Long, JobReportStatus> result = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        try (Connection conn = oracleConnection.getConnection()) {
+            // O Oracle aceita no máximo 1000 expressões por IN-list
+            for (int from = 0; from < ids.size(); from += 1000) {
+                List<Long> chunk = ids.subList(from, Math.min(from + 1000, ids.size()));
+                String sql = "SELECT ID_JOB_REPORT, STATUS FROM JOB_REPORT WHERE ID_JOB_REPORT IN (" +
+                        placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setLong(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            result.put(rs.getLong("ID_JOB_REPORT"), JobReportStatus.valueOf(rs.getString("STATUS")));
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public String findSessionId(long id) throws SQLException {
+        String sql = "SELECT SESSION_ID FROM JOB_REPORT WHERE ID_JOB_REPORT = ?";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("SESSION_ID") : null;
+            }
+        }
+    }
+
+    public boolean isOwnedBy(long id, long userId) throws SQLException {
+        String sql = "SELECT 1 FROM JOB_REPORT WHERE ID_JOB_REPORT = ? AND ID_USER = ?";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+            stmt.setLong(2, userId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Versão do estado do job para ETag: status, session_id, quantidade de áudios e URL do relatório,
+     * numa única consulta leve (sem DESCRIPTION nem linhas de AUDIO_FILES).
+     * Retorna null se o job não existir ou não pertencer ao usuário.
+     */
+    public String findStateVersion(long id, long userId) throws SQLException {
+        String sql = "SELECT j.STATUS, j.SESSION_ID, j.REPORT_URL, " +
+                "(SELECT COUNT(*) FROM AUDIO_FILES a WHERE a.ID_JOB_REPORT = j.ID_JOB_REPORT) AS AUDIO_COUNT " +
+                "FROM JOB_REPORT j WHERE j.ID_JOB_REPORT = ? AND j.ID_USER = ?";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+            stmt.setLong(2, userId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    String sessionId = rs.getString("SESSION_ID");
+                    String reportUrl = rs.getString("REPORT_URL");
+                    return String.format("%s-%d-%08x-%08x",
+                            rs.getString("STATUS"),
+                            rs.getInt("AUDIO_COUNT"),
+                            sessionId != null ? sessionId.hashCode() : 0,
+                            reportUrl != null ? reportUrl.hashCode() : 0);
                 }
             }
 
@@ -76,37 +331,56 @@ public class JobReportDao {
         }
     }
 
-    public List<JobReport> findAll() throws SQLException {
-        String sql = "SELECT ID_JOB_REPORT, ID_USER, COMPANY, TITLE, DESCRIPTION, SESSION_ID FROM JOB_REPORT";
+    /**
+     * Jobs em AUDIOS_READY com session_id cuja verificação do relatório venceu (usa
+     * IDX_JOB_REPORT_NEXT_CHECK). Traz apenas as colunas necessárias para a verificação na Lambda;
+     * os mais atrasados primeiro, e jobs em backoff ficam fora do lote até NEXT_CHECK_AT.
+     */
+    public List<JobReport> findAwaitingReport(int limit) throws SQLException {
+        String sql = "SELECT ID_JOB_REPORT, SESSION_ID FROM JOB_REPORT " +
+                "WHERE STATUS = 'AUDIOS_READY' AND NEXT_CHECK_AT <= CURRENT_TIMESTAMP AND SESSION_ID IS NOT NULL " +
+                "ORDER BY NEXT_CHECK_AT, ID_JOB_REPORT FETCH FIRST ? ROWS ONLY";
 
         List<JobReport> list = new ArrayList<>();
 
         try (Connection conn = oracleConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            while (rs.next()) {
-                JobReport job = new JobReport();
-                job.setIdJobReport(rs.getLong("ID_JOB_REPORT"));
-                job.setIdUser(rs.getLong("ID_USER"));
-                job.setCompany(rs.getString("COMPANY"));
-                job.setTitle(rs.getString("TITLE"));
-                job.setDescription(rs.getString("DESCRIPTION"));
-                job.setSessionId(rs.getString("SESSION_ID"));
-                // Tenta ler REPORT_URL se existir
-                try {
-                    job.setReportUrl(rs.getString("REPORT_URL"));
-                } catch (SQLException e) {
-                    // Coluna ainda não existe, ignora
-                    job.setReportUrl(null);
+            stmt.setInt(1, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    JobReport job = new JobReport();
+                    job.setIdJobReport(rs.getLong("ID_JOB_REPORT"));
+                    job.setSessionId(rs.getString("SESSION_ID"));
+                    job.setStatus(JobReportStatus.AUDIOS_READY);
+                    list.add(job);
                 }
-                list.add(job);
             }
         }
 
         return list;
     }
 
+    /**
+     * Reagenda a verificação do relatório com backoff exponencial calculado pelo banco:
+     * min(maxBackoffMs, initialBackoffMs * 2^CHECK_ATTEMPTS), contando mais uma tentativa.
+     */
+    public void scheduleNextReportCheck(long id, long initialBackoffMs, long maxBackoffMs) throws SQLException {
+        String sql = "UPDATE JOB_REPORT SET " +
+                "NEXT_CHECK_AT = CURRENT_TIMESTAMP + NUMTODSINTERVAL(LEAST(?, ? * POWER(2, LEAST(CHECK_ATTEMPTS, 20))), 'SECOND'), " +
+                "CHECK_ATTEMPTS = CHECK_ATTEMPTS + 1 WHERE ID_JOB_REPORT = ? AND STATUS = 'AUDIOS_READY'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDouble(1, maxBackoffMs / 1000.0);
+            stmt.setDouble(2, initialBackoffMs / 1000.0);
+            stmt.setLong(3, id);
+            stmt.executeUpdate();
+        }
+    }
+
     public boolean update(JobReport jobReport) throws SQLException {
         String sql = "UPDATE JOB_REPORT SET COMPANY = ?, TITLE = ?, DESCRIPTION = ? WHERE ID_JOB_REPORT = ?";
 
@@ -136,8 +410,13 @@ public class JobReportDao {
         }
     }
 
+    /**
+     * Grava o session_id só se o job ainda não tiver um: uma reentrega do job-start (ou um
+     * callback atrasado) não sobrescreve a sessão que o cliente já recebeu.
+     * Retorna false se o job já tinha session_id (ou não existe).
+     */
     public boolean updateSessionId(long id, String sessionId) throws SQLException {
-        String sql = "UPDATE JOB_REPORT SET SESSION_ID = ? WHERE ID_JOB_REPORT = ?";
+        String sql = "UPDATE JOB_REPORT SET SESSION_ID = ? WHERE ID_JOB_REPORT = ? AND SESSION_ID IS NULL";
 
         try (Connection conn = oracleConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -150,8 +429,48 @@ public class JobReportDao {
         }
     }
 
+    /**
+     * Transição PENDING -> AUDIOS_READY. Retorna false se o job já estava nesse estado
+     * ou mais adiante (callback repetido ou fora de ordem não faz o status regredir).
+     */
+    public boolean markAudiosReady(long id) throws SQLException {
+        String sql = "UPDATE JOB_REPORT SET STATUS = 'AUDIOS_READY', AUDIOS_READY_AT = CURRENT_TIMESTAMP, " +
+                "NEXT_CHECK_AT = CURRENT_TIMESTAMP, CHECK_ATTEMPTS = 0 " +
+                "WHERE ID_JOB_REPORT = ? AND STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+
+            int rows = stmt.executeUpdate();
+            return rows > 0;
+        }
+    }
+
+    /**
+     * Leva o job de PENDING para DISPATCH_FAILED (estado final); false se já tinha saído de PENDING.
+     */
+    public boolean markDispatchFailed(long id) throws SQLException {
+        String sql = "UPDATE JOB_REPORT SET STATUS = 'DISPATCH_FAILED' WHERE ID_JOB_REPORT = ? AND STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+
+            int rows = stmt.executeUpdate();
+            return rows > 0;
+        }
+    }
+
+    /**
+     * Salva a URL do relatório e leva o job para REPORT_READY (estado final).
+     * REPORT_READY_AT registra a primeira vez que o relatório ficou pronto.
+     */
     public boolean updateReportUrl(long id, String reportUrl) throws SQLException {
-        String sql = "UPDATE JOB_REPORT SET REPORT_URL = ? WHERE ID_JOB_REPORT = ?";
+        String sql = "UPDATE JOB_REPORT SET REPORT_URL = ?, STATUS = 'REPORT_READY', " +
+                "REPORT_READY_AT = COALESCE(REPORT_READY_AT, CURRENT_TIMESTAMP) WHERE ID_JOB_REPORT = ?";
 
         try (Connection conn = oracleConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -178,4 +497,24 @@ public class JobReportDao {
             System.out.println("✅ Coluna REPORT_URL alterada com sucesso para VARCHAR2(2000)");
         }
     }
+
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private JobReport mapJobReport(ResultSet rs) throws SQLException {
+        JobReport job = new JobReport();
+        job.setIdJobReport(rs.getLong("ID_JOB_REPORT"));
+        job.setIdUser(rs.getLong("ID_USER"));
+        job.setCompany(rs.getString("COMPANY"));
+        job.setTitle(rs.getString("TITLE"));
+        job.setDescription(rs.getString("DESCRIPTION"));
+        job.setSessionId(rs.getString("SESSION_ID"));
+        job.setReportUrl(rs.getString("REPORT_URL"));
+        job.setStatus(JobReportStatus.valueOf(rs.getString("STATUS")));
+        job.setCreatedAt(rs.getTimestamp("CREATED_AT"));
+        job.setAudiosReadyAt(rs.getTimestamp("AUDIOS_READY_AT"));
+        job.setReportReadyAt(rs.getTimestamp("REPORT_READY_AT"));
+        return job;
+    }
 }
@@ -0,0 +1,191 @@
+package com.backend.gs.dao;
+
+import com.backend.gs.database.OracleConnection;
+import com.backend.gs.model.OutboxEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acesso à LAMBDA_OUTBOX. Os horários (NEXT_ATTEMPT_AT, DELIVERED_AT) são sempre calculados
+ * pelo banco, para que várias instâncias do relay concordem sobre o que está vencido.
+ */
+@Repository
+public class OutboxDao {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private OracleConnection oracleConnection;
+
+    /**
+     * Grava um envio pendente na conexão (e transação) do chamador.
+     * O envio só fica visível para o relay após delayMs, dando tempo para a entrega imediata.
+     */
+    public long insert(Connection conn, long jobReportId, String endpoint, String payload, long delayMs) throws SQLException {
+        String sql = "INSERT INTO LAMBDA_OUTBOX (ID_JOB_REPORT, ENDPOINT, PAYLOAD, NEXT_ATTEMPT_AT) " +
+                "VALUES (?, ?, ?, CURRENT_TIMESTAMP + NUMTODSINTERVAL(?, 'SECOND'))";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, new String[]{"ID_OUTBOX"})) {
+            stmt.setLong(1, jobReportId);
+            stmt.setString(2, endpoint);
+            stmt.setString(3, payload);
+            stmt.setDouble(4, delayMs / 1000.0);
+
+            stmt.executeUpdate();
+
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getLong(1);
+                }
+            }
+            throw new SQLException("ID_OUTBOX não retornado no insert");
+        }
+    }
+
+    /**
+     * Reserva até limit envios vencidos: trava as linhas com FOR UPDATE SKIP LOCKED (instâncias
+     * concorrentes pegam linhas diferentes), incrementa ATTEMPTS e empurra NEXT_ATTEMPT_AT para
+     * daqui a leaseMs. Se o relay cair durante a entrega, o envio volta a vencer após o lease.
+     * Os mais atrasados primeiro: o Oracle não aceita ROWNUM/FETCH FIRST com ORDER BY em
+     * FOR UPDATE SKIP LOCKED, então o cursor é ordenado e só as primeiras limit linhas são
+     * buscadas (com SKIP LOCKED, a linha é travada quando é buscada, não quando o cursor abre).
+     */
+    public List<OutboxEntry> claimDue(int limit, long leaseMs) throws SQLException {
+        String selectSql = "SELECT ID_OUTBOX, ID_JOB_REPORT, ENDPOINT, PAYLOAD, ATTEMPTS FROM LAMBDA_OUTBOX " +
+                "WHERE STATUS = 'PENDING' AND NEXT_ATTEMPT_AT <= CURRENT_TIMESTAMP " +
+                "ORDER BY NEXT_ATTEMPT_AT, ID_OUTBOX FOR UPDATE SKIP LOCKED";
+        String leaseSql = "UPDATE LAMBDA_OUTBOX SET ATTEMPTS = ATTEMPTS + 1, " +
+                "NEXT_ATTEMPT_AT = CURRENT_TIMESTAMP + NUMTODSINTERVAL(?, 'SECOND') WHERE ID_OUTBOX = ?";
+
+        List<OutboxEntry> claimed = new ArrayList<>();
+
+        try (Connection conn = oracleConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement select = conn.prepareStatement(selectSql);
+                 PreparedStatement lease = conn.prepareStatement(leaseSql)) {
+
+                select.setFetchSize(limit);
+
+                try (ResultSet rs = select.executeQuery()) {
+                    while (claimed.size() < limit && rs.next()) {
+                        OutboxEntry entry = new OutboxEntry();
+                        entry.setIdOutbox(rs.getLong("ID_OUTBOX"));
+                        entry.setIdJobReport(rs.getLong("ID_JOB_REPORT"));
+                        entry.setEndpoint(rs.getString("ENDPOINT"));
+                        entry.setPayload(rs.getString("PAYLOAD"));
+                        entry.setAttempts(rs.getInt("ATTEMPTS") + 1);
+                        claimed.add(entry);
+                    }
+                }
+
+                for (OutboxEntry entry : claimed) {
+                    lease.setDouble(1, leaseMs / 1000.0);
+                    lease.setLong(2, entry.getIdOutbox());
+                    lease.addBatch();
+                }
+                if (!claimed.isEmpty()) {
+                    lease.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        return claimed;
+    }
+
+    public boolean markDelivered(long idOutbox) throws SQLException {
+        String sql = "UPDATE LAMBDA_OUTBOX SET STATUS = 'DELIVERED', DELIVERED_AT = CURRENT_TIMESTAMP, LAST_ERROR = NULL " +
+                "WHERE ID_OUTBOX = ? AND STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, idOutbox);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Devolve o envio para a fila, com nova tentativa após delayMs (0 = imediatamente).
+     */
+    public void reschedule(long idOutbox, long delayMs, String error) throws SQLException {
+        String sql = "UPDATE LAMBDA_OUTBOX SET NEXT_ATTEMPT_AT = CURRENT_TIMESTAMP + NUMTODSINTERVAL(?, 'SECOND'), " +
+                "LAST_ERROR = ? WHERE ID_OUTBOX = ? AND STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDouble(1, delayMs / 1000.0);
+            stmt.setString(2, truncate(error));
+            stmt.setLong(3, idOutbox);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Como reschedule, mas devolve a tentativa consumida no claimDue: usado quando a Lambda
+     * nem foi chamada (circuito aberto ou bulkhead cheio), que não deve contar para o limite.
+     */
+    public void deferWithoutAttempt(long idOutbox, long delayMs, String error) throws SQLException {
+        String sql = "UPDATE LAMBDA_OUTBOX SET ATTEMPTS = GREATEST(ATTEMPTS - 1, 0), " +
+                "NEXT_ATTEMPT_AT = CURRENT_TIMESTAMP + NUMTODSINTERVAL(?, 'SECOND'), " +
+                "LAST_ERROR = ? WHERE ID_OUTBOX = ? AND STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDouble(1, delayMs / 1000.0);
+            stmt.setString(2, truncate(error));
+            stmt.setLong(3, idOutbox);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Desiste do envio após esgotar as tentativas; fica registrado para análise manual.
+     */
+    public void markFailed(long idOutbox, String error) throws SQLException {
+        String sql = "UPDATE LAMBDA_OUTBOX SET STATUS = 'FAILED', LAST_ERROR = ? WHERE ID_OUTBOX = ? AND STATUS = 'PENDING'";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, truncate(error));
+            stmt.setLong(2, idOutbox);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Remove envios já entregues há mais de retentionHours horas.
+     */
+    public int purgeDelivered(long retentionHours) throws SQLException {
+        String sql = "DELETE FROM LAMBDA_OUTBOX WHERE STATUS = 'DELIVERED' " +
+                "AND DELIVERED_AT < CURRENT_TIMESTAMP - NUMTODSINTERVAL(?, 'HOUR')";
+
+        try (Connection conn = oracleConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, retentionHours);
+            return stmt.executeUpdate();
+        }
+    }
+
+    private String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -18,7 +18,7 @@ public class UserDao {
         String sql = "INSERT INTO users (username, email, password) VALUES (?, ?, ?)";
 
         try (Connection conn = oracleConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql, new String[]{"ID", "CREATED_AT"})) {
             
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getEmail());
@@ -26,14 +26,11 @@ public class UserDao {
             
             stmt.executeUpdate();
             
-            // Busca o ID do usuário recém-criado (Oracle não suporta getGeneratedKeys da mesma forma)
-            try (PreparedStatement selectStmt = conn.prepareStatement(
-                    "SELECT id FROM users WHERE username = ? ORDER BY id DESC FETCH FIRST 1 ROWS ONLY")) {
-                selectStmt.setString(1, user.getUsername());
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        user.setId(rs.getLong(1));
-                    }
+            // ID e CREATED_AT gerados voltam no próprio INSERT (RETURNING ... INTO)
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    user.setId(keys.getLong(1));
+                    user.setCreatedAt(keys.getTimestamp(2));
                 }
             }
             
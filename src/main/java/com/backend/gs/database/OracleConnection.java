@@ -1,16 +1,27 @@
 package com.backend.gs.database;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
+/**
+ * Pool de conexões Oracle (HikariCP) compartilhado por todos os DAOs.
+ * As conexões retornadas por getConnection() devem ser fechadas pelo chamador
+ * (try-with-resources); o close() devolve a conexão ao pool em vez de encerrar a sessão.
+ */
 @Component
 public class OracleConnection {
 
-    private static final String DRIVER = "oracle.jdbc.driver.OracleDriver";
+    private static final String DRIVER = "oracle.jdbc.OracleDriver";
 
     @Value("${oracle.host:oracle.fiap.com.br}")
     private String host;
@@ -27,47 +38,100 @@ public class OracleConnection {
     @Value("${oracle.password}")
     private String password;
 
-    public Connection getConnection() throws SQLException {
-        try {
-            Class.forName(DRIVER);
-            
-            // Monta a URL no mesmo formato do exemplo que funcionou
-            String url = String.format("jdbc:oracle:thin:@%s:%s:%s", host, port, sid);
-            
-            System.out.println("Conectando ao Oracle:");
-            System.out.println("  Host: " + host + ":" + port);
-            System.out.println("  SID: " + sid);
-            System.out.println("  Usuário: " + username);
-            
-            Connection connection = DriverManager.getConnection(url, username, password);
-            System.out.println("Oracle connection established successfully!");
-            
-            return connection;
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("Driver Oracle não encontrado", e);
+    @Value("${oracle.pool.min-idle:2}")
+    private int minIdle;
+
+    @Value("${oracle.pool.max-size:10}")
+    private int maxPoolSize;
+
+    @Value("${oracle.pool.connection-timeout-ms:5000}")
+    private long connectionTimeoutMs;
+
+    @Value("${oracle.pool.validation-timeout-ms:2000}")
+    private long validationTimeoutMs;
+
+    @Value("${oracle.pool.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    @Value("${oracle.pool.max-lifetime-ms:1800000}")
+    private long maxLifetimeMs;
+
+    @Value("${oracle.pool.keepalive-ms:120000}")
+    private long keepaliveMs;
+
+    @Value("${oracle.pool.leak-detection-threshold-ms:20000}")
+    private long leakDetectionThresholdMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private HikariDataSource dataSource;
+
+    @PostConstruct
+    public void init() {
+        // Monta a URL no mesmo formato do exemplo que funcionou
+        String url = String.format("jdbc:oracle:thin:@%s:%s:%s", host, port, sid);
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("oracle-pool");
+        config.setDriverClassName(DRIVER);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMinimumIdle(minIdle);
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setConnectionTimeout(connectionTimeoutMs);
+        config.setValidationTimeout(validationTimeoutMs);
+        config.setIdleTimeout(idleTimeoutMs);
+        config.setMaxLifetime(maxLifetimeMs);
+        config.setKeepaliveTime(keepaliveMs);
+        config.setLeakDetectionThreshold(leakDetectionThresholdMs);
+        // Não derruba a aplicação se o Oracle estiver fora no startup; o pool tenta de novo sob demanda
+        config.setInitializationFailTimeout(-1);
+        // Métricas hikaricp.connections.* (active, idle, pending, acquire, usage, creation)
+        config.setMetricRegistry(meterRegistry);
+
+        System.out.println("Inicializando pool Oracle:");
+        System.out.println("  Host: " + host + ":" + port);
+        System.out.println("  SID: " + sid);
+        System.out.println("  Usuário: " + username);
+        System.out.println("  Pool: min=" + minIdle + " max=" + maxPoolSize);
+
+        dataSource = new HikariDataSource(config);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+            System.out.println("Oracle pool closed successfully!");
         }
     }
 
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
     public void closeConnection(Connection con) {
         try {
             if (con != null && !con.isClosed()) {
                 con.close();
-                System.out.println("Oracle connection closed successfully!");
             }
         } catch (SQLException e) {
-            System.err.println("Erro ao fechar conexão: " + e.getMessage());
+            System.err.println("Erro ao devolver conexão ao pool: " + e.getMessage());
         }
     }
 
     public boolean testConnection() {
-        try {
-            Connection conn = getConnection();
-            boolean isOpen = conn != null && !conn.isClosed();
-            closeConnection(conn);
-            return isOpen;
+        try (Connection conn = getConnection()) {
+            return conn.isValid((int) Math.max(1, validationTimeoutMs / 1000));
         } catch (SQLException e) {
             System.err.println("Error testing Oracle connection: " + e.getMessage());
             return false;
         }
     }
-}
\ No newline at end of file
+}
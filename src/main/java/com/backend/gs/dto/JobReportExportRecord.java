@@ -0,0 +1,174 @@
+package com.backend.gs.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uma linha do export NDJSON: o job report com seus arquivos de áudio.
+ */
+public class JobReportExportRecord {
+
+    @JsonProperty("job_report_id")
+    private Long jobReportId;
+
+    @JsonProperty("user_id")
+    private Long userId;
+
+    @JsonProperty("company")
+    private String company;
+
+    @JsonProperty("title")
+    private String title;
+
+    @JsonProperty("session_id")
+    private String sessionId;
+
+    @JsonProperty("report_url")
+    private String reportUrl;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("created_at")
+    private Timestamp createdAt;
+
+    @JsonProperty("audios_ready_at")
+    private Timestamp audiosReadyAt;
+
+    @JsonProperty("report_ready_at")
+    private Timestamp reportReadyAt;
+
+    @JsonProperty("audio_files")
+    private List<AudioFileEntry> audioFiles = new ArrayList<>();
+
+    public static class AudioFileEntry {
+
+        @JsonProperty("audio_file_id")
+        private Long audioFileId;
+
+        @JsonProperty("s3_path")
+        private String s3Path;
+
+        @JsonProperty("file_name")
+        private String fileName;
+
+        @JsonProperty("created_at")
+        private Timestamp createdAt;
+
+        public AudioFileEntry() {
+        }
+
+        public AudioFileEntry(Long audioFileId, String s3Path, String fileName, Timestamp createdAt) {
+            this.audioFileId = audioFileId;
+            this.s3Path = s3Path;
+            this.fileName = fileName;
+            this.createdAt = createdAt;
+        }
+
+        public Long getAudioFileId() {
+            return audioFileId;
+        }
+
+        public String getS3Path() {
+            return s3Path;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public Timestamp getCreatedAt() {
+            return createdAt;
+        }
+    }
+
+    public Long getJobReportId() {
+        return jobReportId;
+    }
+
+    public void setJobReportId(Long jobReportId) {
+        this.jobReportId = jobReportId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public void setCompany(String company) {
+        this.company = company;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getReportUrl() {
+        return reportUrl;
+    }
+
+    public void setReportUrl(String reportUrl) {
+        this.reportUrl = reportUrl;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Timestamp getAudiosReadyAt() {
+        return audiosReadyAt;
+    }
+
+    public void setAudiosReadyAt(Timestamp audiosReadyAt) {
+        this.audiosReadyAt = audiosReadyAt;
+    }
+
+    public Timestamp getReportReadyAt() {
+        return reportReadyAt;
+    }
+
+    public void setReportReadyAt(Timestamp reportReadyAt) {
+        this.reportReadyAt = reportReadyAt;
+    }
+
+    public List<AudioFileEntry> getAudioFiles() {
+        return audioFiles;
+    }
+
+    public void setAudioFiles(List<AudioFileEntry> audioFiles) {
+        this.audioFiles = audioFiles;
+    }
+}
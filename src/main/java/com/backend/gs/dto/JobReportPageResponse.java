@@ -0,0 +1,37 @@
+package com.backend.gs.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public class JobReportPageResponse {
+
+    @JsonProperty("items")
+    private List<JobReportSummaryResponse> items;
+
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    public JobReportPageResponse() {
+    }
+
+    public JobReportPageResponse(List<JobReportSummaryResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<JobReportSummaryResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<JobReportSummaryResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
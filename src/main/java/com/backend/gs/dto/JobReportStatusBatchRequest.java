@@ -0,0 +1,18 @@
+package com.backend.gs.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public class JobReportStatusBatchRequest {
+
+    @JsonProperty("job_report_ids")
+    private List<Long> jobReportIds;
+
+    public List<Long> getJobReportIds() {
+        return jobReportIds;
+    }
+
+    public void setJobReportIds(List<Long> jobReportIds) {
+        this.jobReportIds = jobReportIds;
+    }
+}
@@ -0,0 +1,38 @@
+package com.backend.gs.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Map;
+
+public class JobReportStatusBatchResponse {
+
+    @JsonProperty("statuses")
+    private Map<Long, JobReportStatusResponse> statuses;
+
+    @JsonProperty("not_found")
+    private List<Long> notFound;
+
+    public JobReportStatusBatchResponse() {
+    }
+
+    public JobReportStatusBatchResponse(Map<Long, JobReportStatusResponse> statuses, List<Long> notFound) {
+        this.statuses = statuses;
+        this.notFound = notFound;
+    }
+
+    public Map<Long, JobReportStatusResponse> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(Map<Long, JobReportStatusResponse> statuses) {
+        this.statuses = statuses;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Long> notFound) {
+        this.notFound = notFound;
+    }
+}
@@ -9,12 +9,16 @@ public class JobReportStatusResponse {
         PENDING,
         AUDIOS_READY,
         REPORT_READY,
+        DISPATCH_FAILED,
         COMPLETED
     }
 
     @JsonProperty("status")
     private Status status;
 
+    @JsonProperty("session_id")
+    private String sessionId;
+
     @JsonProperty("audio_urls")
     private List<PresignedUrlResponse> audioUrls;
 
@@ -42,6 +46,14 @@ public class JobReportStatusResponse {
         this.status = status;
     }
 
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
     public List<PresignedUrlResponse> getAudioUrls() {
         return audioUrls;
     }
@@ -0,0 +1,73 @@
+package com.backend.gs.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.sql.Timestamp;
+
+public class JobReportSummaryResponse {
+
+    @JsonProperty("job_report_id")
+    private Long jobReportId;
+
+    @JsonProperty("company")
+    private String company;
+
+    @JsonProperty("title")
+    private String title;
+
+    @JsonProperty("session_id")
+    private String sessionId;
+
+    @JsonProperty("status")
+    private JobReportStatusResponse.Status status;
+
+    @JsonProperty("created_at")
+    private Timestamp createdAt;
+
+    public Long getJobReportId() {
+        return jobReportId;
+    }
+
+    public void setJobReportId(Long jobReportId) {
+        this.jobReportId = jobReportId;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public void setCompany(String company) {
+        this.company = company;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public JobReportStatusResponse.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobReportStatusResponse.Status status) {
+        this.status = status;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -13,6 +13,9 @@ public class PresignedUrlResponse {
     @JsonProperty("file_name")
     private String fileName;
 
+    @JsonProperty("error")
+    private String error;
+
     public PresignedUrlResponse() {
     }
 
@@ -22,6 +25,13 @@ public class PresignedUrlResponse {
         this.fileName = fileName;
     }
 
+    public PresignedUrlResponse(String s3Path, String presignedUrl, String fileName, String error) {
+        this.s3Path = s3Path;
+        this.presignedUrl = presignedUrl;
+        this.fileName = fileName;
+        this.error = error;
+    }
+
     public String getS3Path() {
         return s3Path;
     }
@@ -45,5 +55,12 @@ public class PresignedUrlResponse {
     public void setFileName(String fileName) {
         this.fileName = fileName;
     }
-}
 
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,36 @@
+package com.backend.gs.model;
+
+import java.security.Principal;
+
+/**
+ * Usuário autenticado, montado pelo JwtAuthenticationFilter a partir das claims do token
+ * e injetável nos controllers com @AuthenticationPrincipal.
+ */
+public class AuthenticatedUser implements Principal {
+
+    private final Long id;
+    private final String username;
+
+    public AuthenticatedUser(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,53 @@
+package com.backend.gs.model;
+
+public class CallbackInboxEntry {
+
+    public static final String AUDIOS_READY = "AUDIOS_READY";
+    public static final String REPORT_READY = "REPORT_READY";
+
+    private long idCallback;
+    private long idJobReport;
+    private String callbackType;
+    private String payload;
+    private int attempts;
+
+    public long getIdCallback() {
+        return idCallback;
+    }
+
+    public void setIdCallback(long idCallback) {
+        this.idCallback = idCallback;
+    }
+
+    public long getIdJobReport() {
+        return idJobReport;
+    }
+
+    public void setIdJobReport(long idJobReport) {
+        this.idJobReport = idJobReport;
+    }
+
+    public String getCallbackType() {
+        return callbackType;
+    }
+
+    public void setCallbackType(String callbackType) {
+        this.callbackType = callbackType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
@@ -1,5 +1,7 @@
 package com.backend.gs.model;
 
+import java.sql.Timestamp;
+
 public class JobReport {
 
     private long idJobReport;
@@ -9,6 +11,10 @@ public class JobReport {
     private String description;
     private String sessionId;
     private String reportUrl;
+    private JobReportStatus status;
+    private Timestamp createdAt;
+    private Timestamp audiosReadyAt;
+    private Timestamp reportReadyAt;
 
     public long getIdJobReport() {
         return idJobReport;
@@ -65,4 +71,36 @@ public class JobReport {
     public void setReportUrl(String reportUrl) {
         this.reportUrl = reportUrl;
     }
+
+    public JobReportStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobReportStatus status) {
+        this.status = status;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Timestamp getAudiosReadyAt() {
+        return audiosReadyAt;
+    }
+
+    public void setAudiosReadyAt(Timestamp audiosReadyAt) {
+        this.audiosReadyAt = audiosReadyAt;
+    }
+
+    public Timestamp getReportReadyAt() {
+        return reportReadyAt;
+    }
+
+    public void setReportReadyAt(Timestamp reportReadyAt) {
+        this.reportReadyAt = reportReadyAt;
+    }
 }
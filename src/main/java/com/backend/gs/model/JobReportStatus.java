@@ -0,0 +1,20 @@
+package com.backend.gs.model;
+
+/**
+ * Estado materializado na coluna JOB_REPORT.STATUS.
+ * A ordem das constantes é a ordem do ciclo de vida: o status só avança
+ * (PENDING -> AUDIOS_READY -> REPORT_READY), nunca volta.
+ * DISPATCH_FAILED é o outro estado final, alcançado só a partir de PENDING quando o
+ * OutboxRelay desiste de enviar o job para a Lambda; fica por último para que quem
+ * espera qualquer status adiante (long-poll, SSE) seja liberado.
+ */
+public enum JobReportStatus {
+    PENDING,
+    AUDIOS_READY,
+    REPORT_READY,
+    DISPATCH_FAILED;
+
+    public boolean isFinal() {
+        return this == REPORT_READY || this == DISPATCH_FAILED;
+    }
+}
@@ -0,0 +1,50 @@
+package com.backend.gs.model;
+
+public class OutboxEntry {
+
+    private long idOutbox;
+    private long idJobReport;
+    private String endpoint;
+    private String payload;
+    private int attempts;
+
+    public long getIdOutbox() {
+        return idOutbox;
+    }
+
+    public void setIdOutbox(long idOutbox) {
+        this.idOutbox = idOutbox;
+    }
+
+    public long getIdJobReport() {
+        return idJobReport;
+    }
+
+    public void setIdJobReport(long idJobReport) {
+        this.idJobReport = idJobReport;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
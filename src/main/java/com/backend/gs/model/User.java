@@ -4,6 +4,8 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.sql.Timestamp;
+
 public class User {
 
     private Long id;
@@ -20,6 +22,8 @@ public class User {
     @Size(min = 6, message = "A senha deve ter pelo menos 6 caracteres.")
     private String password;
 
+    private Timestamp createdAt;
+
     public User() {
     }
 
@@ -60,4 +64,12 @@ public class User {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
 }
\ No newline at end of file
@@ -6,75 +6,90 @@ import com.backend.gs.dto.LoginRequest;
 import com.backend.gs.dto.RegisterRequest;
 import com.backend.gs.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class AuthService {
 
     private final UserDao userDao;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
+    // Executor de tarefas do Spring (spring.task.execution.*): o INSERT do cadastro não ocupa o pool do BCrypt
+    private final Executor taskExecutor;
 
     @Autowired
-    public AuthService(UserDao userDao, PasswordEncoder passwordEncoder, JwtService jwtService) {
+    public AuthService(UserDao userDao, PasswordHashingService passwordHashingService, JwtService jwtService,
+                       @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
         this.userDao = userDao;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.jwtService = jwtService;
+        this.taskExecutor = taskExecutor;
     }
 
-    public AuthResponse register(RegisterRequest request) {
+    /**
+     * As validações no banco rodam na thread da requisição e o hash da senha no pool do BCrypt
+     * (PasswordHashingService); o INSERT e o token seguem no executor de tarefas, para que a
+     * latência do banco não consuma a capacidade de hashing.
+     */
+    public CompletableFuture<AuthResponse> register(RegisterRequest request) {
 
         if (userDao.existsByUsername(request.getUsername())) {
-            return new AuthResponse("Username já está em uso", false);
+            return CompletableFuture.completedFuture(new AuthResponse("Username já está em uso", false));
         }
 
         if (userDao.existsByEmail(request.getEmail())) {
-            return new AuthResponse("Email já está em uso", false);
+            return CompletableFuture.completedFuture(new AuthResponse("Email já está em uso", false));
         }
 
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        return passwordHashingService.encode(request.getPassword()).thenApplyAsync(encodedPassword -> {
+            User user = new User();
+            user.setUsername(request.getUsername());
+            user.setEmail(request.getEmail());
+            user.setPassword(encodedPassword);
 
-        User savedUser = userDao.save(user);
+            User savedUser = userDao.save(user);
 
-        String token = jwtService.generateToken(savedUser.getUsername(), savedUser.getId());
+            String token = jwtService.generateToken(savedUser.getUsername(), savedUser.getId());
 
-        return new AuthResponse(
-                "Usuário registrado com sucesso",
-                true,
-                savedUser.getId(),
-                savedUser.getUsername(),
-                token
-        );
+            return new AuthResponse(
+                    "Usuário registrado com sucesso",
+                    true,
+                    savedUser.getId(),
+                    savedUser.getUsername(),
+                    token
+            );
+        }, taskExecutor);
     }
 
-    public AuthResponse login(LoginRequest request) {
+    public CompletableFuture<AuthResponse> login(LoginRequest request) {
 
         Optional<User> userOptional = userDao.findByUsername(request.getUsername());
 
         if (userOptional.isEmpty()) {
-            return new AuthResponse("Username ou senha inválidos", false);
+            return CompletableFuture.completedFuture(new AuthResponse("Username ou senha inválidos", false));
         }
 
         User user = userOptional.get();
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            return new AuthResponse("Username ou senha inválidos", false);
-        }
-
-        String token = jwtService.generateToken(user.getUsername(), user.getId());
-
-        return new AuthResponse(
-                "Login realizado com sucesso",
-                true,
-                user.getId(),
-                user.getUsername(),
-                token
-        );
+        return passwordHashingService.matches(request.getPassword(), user.getPassword()).thenApply(matches -> {
+            if (!matches) {
+                return new AuthResponse("Username ou senha inválidos", false);
+            }
+
+            String token = jwtService.generateToken(user.getUsername(), user.getId());
+
+            return new AuthResponse(
+                    "Login realizado com sucesso",
+                    true,
+                    user.getId(),
+                    user.getUsername(),
+                    token
+            );
+        });
     }
-}
\ No newline at end of file
+}
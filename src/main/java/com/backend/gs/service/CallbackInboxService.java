@@ -0,0 +1,303 @@
+package com.backend.gs.service;
+
+import com.backend.gs.dao.CallbackInboxDao;
+import com.backend.gs.dto.AudiosReadyCallback;
+import com.backend.gs.dto.ReportReadyCallback;
+import com.backend.gs.model.CallbackInboxEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fila durável dos callbacks da Lambda (CALLBACK_INBOX).
+ * Os endpoints de callback só gravam o payload (um INSERT) e respondem 202; o worker agendado
+ * reserva lotes de callbacks vencidos, agrupa por job e aplica cada grupo com uma única escrita
+ * por tipo de dado (session_id, áudios, URL do relatório), pelos mesmos métodos do
+ * JobReportService, de modo que as notificações de status continuam sendo publicadas.
+ * A fila é limitada a callback.inbox.max-pending callbacks pendentes; acima disso o enqueue
+ * é recusado (503) e a Lambda reenvia depois.
+ */
+@Service
+public class CallbackInboxService {
+
+    /**
+     * Fila cheia: o callback não foi gravado.
+     */
+    public static class InboxFullException extends RuntimeException {
+        public InboxFullException(String message) {
+            super(message);
+        }
+    }
+
+    // ORA-02291: integrity constraint violated - parent key not found
+    private static final int ORA_PARENT_KEY_NOT_FOUND = 2291;
+
+    private final CallbackInboxDao callbackInboxDao;
+    private final JobReportService jobReportService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    // Estimativa dos pendentes: recontada no banco a cada ciclo do worker e incrementada a cada enqueue
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter applied;
+    private final Counter retried;
+    private final Counter failed;
+    private final int batchSize;
+
+    @Value("${callback.inbox.max-pending:5000}")
+    private int maxPending;
+
+    @Value("${callback.inbox.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${callback.inbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${callback.inbox.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    @Value("${callback.inbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${callback.inbox.retention-hours:72}")
+    private long retentionHours;
+
+    public CallbackInboxService(CallbackInboxDao callbackInboxDao, JobReportService jobReportService,
+                                ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                @Value("${callback.inbox.worker.max-concurrency:4}") int maxConcurrency,
+                                @Value("${callback.inbox.worker.batch-size:100}") int batchSize) {
+        this.callbackInboxDao = callbackInboxDao;
+        this.jobReportService = jobReportService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        // Fila do tamanho do lote (invokeAll de um lote por ciclo); se lotar, a thread do agendador executa
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, batchSize)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "callback-inbox-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "callback-inbox");
+        this.accepted = meterRegistry.counter("callback.inbox.enqueued", "result", "accepted");
+        this.rejected = meterRegistry.counter("callback.inbox.enqueued", "result", "rejected");
+        this.applied = meterRegistry.counter("callback.inbox.callbacks", "result", "applied");
+        this.retried = meterRegistry.counter("callback.inbox.callbacks", "result", "retry");
+        this.failed = meterRegistry.counter("callback.inbox.callbacks", "result", "failed");
+        Gauge.builder("callback.inbox.pending", pending, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public long enqueueAudiosReady(AudiosReadyCallback callback) throws Exception {
+        return enqueue(callback.getJobReportId(), CallbackInboxEntry.AUDIOS_READY, objectMapper.writeValueAsString(callback));
+    }
+
+    public long enqueueReportReady(ReportReadyCallback callback) throws Exception {
+        return enqueue(callback.getJobReportId(), CallbackInboxEntry.REPORT_READY, objectMapper.writeValueAsString(callback));
+    }
+
+    private long enqueue(long jobReportId, String callbackType, String payload) throws SQLException {
+        if (pending.get() >= maxPending) {
+            rejected.increment();
+            throw new InboxFullException("Callback queue is full (" + maxPending + " pending)");
+        }
+
+        long id;
+        try {
+            id = callbackInboxDao.insert(jobReportId, callbackType, payload);
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ORA_PARENT_KEY_NOT_FOUND) {
+                throw new IllegalArgumentException("Job report not found: " + jobReportId);
+            }
+            throw e;
+        }
+
+        pending.incrementAndGet();
+        accepted.increment();
+        return id;
+    }
+
+    @Scheduled(fixedDelayString = "${callback.inbox.worker.interval-ms:1000}",
+               initialDelayString = "${callback.inbox.worker.interval-ms:1000}")
+    public void drain() {
+        List<CallbackInboxEntry> batch;
+        try {
+            batch = callbackInboxDao.claimDue(batchSize, leaseMs);
+        } catch (Exception e) {
+            System.err.println("⚠️ Callback inbox: erro ao reservar callbacks: " + e.getMessage());
+            return;
+        }
+
+        if (!batch.isEmpty()) {
+            // Um grupo por job, na ordem de chegada dos callbacks
+            batch.sort(Comparator.comparingLong(CallbackInboxEntry::getIdCallback));
+            Map<Long, List<CallbackInboxEntry>> byJob = new LinkedHashMap<>();
+            for (CallbackInboxEntry entry : batch) {
+                byJob.computeIfAbsent(entry.getIdJobReport(), id -> new ArrayList<>()).add(entry);
+            }
+
+            List<Callable<Void>> tasks = new ArrayList<>(byJob.size());
+            for (Map.Entry<Long, List<CallbackInboxEntry>> group : byJob.entrySet()) {
+                tasks.add(() -> {
+                    apply(group.getKey(), group.getValue());
+                    return null;
+                });
+            }
+
+            try {
+                executor.invokeAll(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        try {
+            pending.set(callbackInboxDao.countPending());
+        } catch (Exception e) {
+            System.err.println("⚠️ Callback inbox: erro ao contar pendentes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica todos os callbacks do job de uma vez: último session_id recebido, união dos áudios
+     * (um único batch) e última URL de relatório, na mesma ordem do processamento síncrono.
+     */
+    private void apply(long jobReportId, List<CallbackInboxEntry> entries) {
+        String sessionId = null;
+        String reportUrl = null;
+        Set<String> audioFiles = new LinkedHashSet<>();
+        List<Long> ids = new ArrayList<>(entries.size());
+        List<Long> invalid = new ArrayList<>();
+
+        for (CallbackInboxEntry entry : entries) {
+            try {
+                if (CallbackInboxEntry.AUDIOS_READY.equals(entry.getCallbackType())) {
+                    AudiosReadyCallback callback = objectMapper.readValue(entry.getPayload(), AudiosReadyCallback.class);
+                    if (callback.getSessionId() != null) {
+                        sessionId = callback.getSessionId();
+                    }
+                    if (callback.getAudioFiles() != null) {
+                        audioFiles.addAll(callback.getAudioFiles());
+                    }
+                } else {
+                    ReportReadyCallback callback = objectMapper.readValue(entry.getPayload(), ReportReadyCallback.class);
+                    if (callback.getSessionId() != null) {
+                        sessionId = callback.getSessionId();
+                    }
+                    if (callback.getReportUrl() != null) {
+                        reportUrl = callback.getReportUrl();
+                    }
+                }
+                ids.add(entry.getIdCallback());
+            } catch (Exception e) {
+                invalid.add(entry.getIdCallback());
+            }
+        }
+
+        if (!invalid.isEmpty()) {
+            System.err.println("❌ Callback inbox: " + invalid.size() + " callback(s) inválido(s) do job " + jobReportId + " descartado(s)");
+            markFailed(invalid, "Invalid payload");
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (sessionId != null) {
+                jobReportService.updateSessionId(jobReportId, sessionId);
+            }
+            if (!audioFiles.isEmpty()) {
+                jobReportService.saveAudioPaths(jobReportId, new ArrayList<>(audioFiles));
+            }
+            if (reportUrl != null) {
+                jobReportService.updateReportUrl(jobReportId, reportUrl);
+            }
+
+            callbackInboxDao.markApplied(ids);
+            applied.increment(ids.size());
+            System.out.println("✅ Callback inbox: job " + jobReportId + " atualizado com " + ids.size() + " callback(s)");
+        } catch (Exception e) {
+            handleFailure(jobReportId, entries, ids, e);
+        }
+    }
+
+    private void handleFailure(long jobReportId, List<CallbackInboxEntry> entries, List<Long> ids, Exception error) {
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        int attempts = entries.stream().mapToInt(CallbackInboxEntry::getAttempts).max().orElse(1);
+        try {
+            if (attempts >= maxAttempts) {
+                callbackInboxDao.markFailed(ids, message);
+                failed.increment(ids.size());
+                System.err.println("❌ Callback inbox: job " + jobReportId + " desistido após " + attempts + " tentativas: " + message);
+            } else {
+                callbackInboxDao.reschedule(ids, backoffMillis(attempts), message);
+                retried.increment(ids.size());
+                System.err.println("⚠️ Callback inbox: job " + jobReportId + " falhou (tentativa " + attempts + "): " + message);
+            }
+        } catch (Exception e) {
+            // O lease expira e os callbacks voltam a ser reservados
+            System.err.println("⚠️ Callback inbox: erro ao reagendar callbacks do job " + jobReportId + ": " + e.getMessage());
+        }
+    }
+
+    private void markFailed(List<Long> ids, String message) {
+        try {
+            callbackInboxDao.markFailed(ids, message);
+            failed.increment(ids.size());
+        } catch (Exception e) {
+            System.err.println("⚠️ Callback inbox: erro ao marcar callbacks como FAILED: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Backoff exponencial com jitter: metade fixa e metade aleatória de min(max, inicial * 2^(tentativa-1)).
+     */
+    private long backoffMillis(int attempts) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    @Scheduled(fixedDelayString = "${callback.inbox.purge.interval-ms:3600000}",
+               initialDelayString = "${callback.inbox.purge.interval-ms:3600000}")
+    public void purge() {
+        try {
+            int removed = callbackInboxDao.purgeApplied(retentionHours);
+            if (removed > 0) {
+                System.out.println("🧹 Callback inbox: " + removed + " callback(s) aplicado(s) removido(s)");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Callback inbox: erro ao limpar callbacks aplicados: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
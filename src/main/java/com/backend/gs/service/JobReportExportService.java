@@ -0,0 +1,117 @@
+package com.backend.gs.service;
+
+import com.backend.gs.dao.JobReportDao;
+import com.backend.gs.dto.JobReportExportRecord;
+import com.backend.gs.model.JobReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Export NDJSON (um job report por linha, com seus áudios) para a carga analítica noturna.
+ * Os jobs são lidos em páginas por keyset (ID_JOB_REPORT > último id), cada uma numa consulta
+ * curta: a página é montada em memória, a conexão volta ao pool e só então as linhas são
+ * escritas na resposta. Assim um cliente lento não prende conexão, e a memória fica limitada
+ * a uma página (jobreport.export.page-size jobs). O número de exports simultâneos é limitado
+ * por jobreport.export.max-concurrent.
+ */
+@Service
+public class JobReportExportService {
+
+    private final JobReportDao jobReportDao;
+    private final ObjectMapper objectMapper;
+
+    @Value("${jobreport.export.page-size:500}")
+    private int pageSize;
+
+    @Value("${jobreport.export.max-concurrent:1}")
+    private int maxConcurrent;
+
+    private Semaphore permits;
+
+    public JobReportExportService(JobReportDao jobReportDao, ObjectMapper objectMapper) {
+        this.jobReportDao = jobReportDao;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * Reserva uma vaga de export; lança IllegalStateException se todas estiverem em uso.
+     * A vaga deve ser liberada com release() ao fim do export.
+     */
+    public void acquire() {
+        if (!permits.tryAcquire()) {
+            throw new IllegalStateException("Limite de exports simultâneos atingido (" + maxConcurrent + ")");
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Escreve todos os jobs em out, um JSON por linha. Retorna o número de jobs exportados.
+     */
+    public long exportTo(OutputStream out) throws SQLException, IOException {
+        int limit = Math.max(1, pageSize);
+        long afterId = 0;
+        long written = 0;
+
+        while (true) {
+            List<JobReportExportRecord> page = new ArrayList<>(limit);
+            jobReportDao.exportPage(afterId, limit, (job, audioFile) -> {
+                JobReportExportRecord current = page.isEmpty() ? null : page.get(page.size() - 1);
+                if (current == null || !current.getJobReportId().equals(job.getIdJobReport())) {
+                    current = toRecord(job);
+                    page.add(current);
+                }
+                if (audioFile != null) {
+                    current.getAudioFiles().add(new JobReportExportRecord.AudioFileEntry(
+                            audioFile.getIdAudioFile(), audioFile.getS3Path(),
+                            audioFile.getFileName(), audioFile.getCreatedAt()));
+                }
+            });
+
+            for (JobReportExportRecord record : page) {
+                out.write(objectMapper.writeValueAsBytes(record));
+                out.write('\n');
+            }
+            written += page.size();
+
+            if (page.size() < limit) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getJobReportId();
+        }
+
+        out.flush();
+        return written;
+    }
+
+    private JobReportExportRecord toRecord(JobReport job) {
+        JobReportExportRecord record = new JobReportExportRecord();
+        record.setJobReportId(job.getIdJobReport());
+        record.setUserId(job.getIdUser());
+        record.setCompany(job.getCompany());
+        record.setTitle(job.getTitle());
+        record.setSessionId(job.getSessionId());
+        record.setReportUrl(job.getReportUrl());
+        record.setStatus(job.getStatus().name());
+        record.setCreatedAt(job.getCreatedAt());
+        record.setAudiosReadyAt(job.getAudiosReadyAt());
+        record.setReportReadyAt(job.getReportReadyAt());
+        return record;
+    }
+}
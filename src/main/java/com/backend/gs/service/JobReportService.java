@@ -2,29 +2,56 @@ package com.backend.gs.service;
 
 import com.backend.gs.dao.AudioFileDao;
 import com.backend.gs.dao.JobReportDao;
+import com.backend.gs.dao.OutboxDao;
+import com.backend.gs.database.OracleConnection;
+import com.backend.gs.dto.JobReportPageResponse;
+import com.backend.gs.dto.JobReportStatusBatchResponse;
 import com.backend.gs.dto.JobReportStatusResponse;
 import com.backend.gs.dto.PresignedUrlResponse;
 import com.backend.gs.dto.PresignedUploadUrlResponse;
 import com.backend.gs.model.AudioFile;
 import com.backend.gs.model.JobReport;
+import com.backend.gs.model.JobReportStatus;
+import com.backend.gs.model.OutboxEntry;
 import com.backend.gs.dto.JobReportRequest;
 import com.backend.gs.dto.JobReportResponse;
+import com.backend.gs.dto.JobReportSummaryResponse;
+import com.backend.gs.utils.CircuitBreaker;
 import com.backend.gs.utils.JobInfoUtil;
+import com.backend.gs.utils.SingleFlight;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class JobReportService {
@@ -32,210 +59,636 @@ public class JobReportService {
     private final JobReportDao jobReportDAO;
     private final AudioFileDao audioFileDao;
     private final S3Service s3Service;
+    private final PresignedUrlCache presignedUrlCache;
+    private final JobStatusNotifier statusNotifier;
+    private final LambdaClient lambdaClient;
+    private final OutboxDao outboxDao;
+    private final OracleConnection oracleConnection;
     private final ObjectMapper objectMapper;
+    private final SingleFlight<Long, JobReportStatusResponse> statusFlights = new SingleFlight<>();
+    // JDBC do fim da criação assíncrona, fora das threads do HttpClient (compartilhadas com o presign)
+    private final ExecutorService dispatchExecutor;
 
-    @Value("${lambda.url:https://lv6bwqn7dfkqulrqquhlz3fhdy0zuzbx.lambda-url.us-east-1.on.aws/}")
-    private String lambdaUrl;
+    @Value("${s3.bucket.name}")
+    private String s3BucketName;
 
-    @Value("${lambda.presigned.url:https://6t7s4lvjy7aohaxruak6a3arfy0byiau.lambda-url.us-east-1.on.aws/}")
-    private String lambdaPresignedUrl;
+    // "lambda" (padrão) chama a Lambda de presign; "local" assina no próprio processo via S3Service
+    @Value("${s3.presign.mode:lambda}")
+    private String presignMode;
 
-    @Value("${lambda.upload.urls:https://mcy4uuho2gkb3ey3f5fz3cko2a0kmcgl.lambda-url.us-east-1.on.aws/}")
-    private String lambdaUploadUrlsUrl;
+    @Value("${outbox.lease-ms:60000}")
+    private long outboxLeaseMs;
 
-    @Value("${lambda.check.report.url:}")
-    private String lambdaCheckReportUrl;
+    @Value("${jobreport.list.default-page-size:20}")
+    private int listDefaultPageSize;
 
-    @Value("${s3.bucket.name}")
-    private String s3BucketName;
+    @Value("${jobreport.list.max-page-size:100}")
+    private int listMaxPageSize;
+
+    @Value("${jobreport.status.batch.max-ids:100}")
+    private int statusBatchMaxIds;
+
+    @Value("${status.etag.window-seconds:300}")
+    private long statusETagWindowSeconds;
+
+    @Value("${lambda.presign.max-concurrency:8}")
+    private int presignMaxConcurrency;
+
+    @Value("${lambda.presign.deadline-ms:5000}")
+    private long presignDeadlineMs;
 
     @Autowired
     public JobReportService(JobReportDao jobReportDAO, AudioFileDao audioFileDao, 
-                           S3Service s3Service) {
+                           S3Service s3Service, PresignedUrlCache presignedUrlCache,
+                           JobStatusNotifier statusNotifier, LambdaClient lambdaClient,
+                           OutboxDao outboxDao, OracleConnection oracleConnection,
+                           MeterRegistry meterRegistry,
+                           @Value("${jobreport.create.async.db-threads:4}") int dispatchThreads,
+                           @Value("${jobreport.create.async.queue-capacity:500}") int dispatchQueueCapacity) {
         this.jobReportDAO = jobReportDAO;
         this.audioFileDao = audioFileDao;
         this.s3Service = s3Service;
+        this.presignedUrlCache = presignedUrlCache;
+        this.statusNotifier = statusNotifier;
+        this.lambdaClient = lambdaClient;
+        this.outboxDao = outboxDao;
+        this.oracleConnection = oracleConnection;
         this.objectMapper = new ObjectMapper();
+
+        // Fila cheia: a conclusão roda na própria thread que a submeteu (a do HttpClient). Descartá-la
+        // perderia o session_id de uma sessão já criada na Lambda e o relay reenviaria o job-start
+        Counter dispatchRejected = meterRegistry.counter("jobreport.create.async.rejected");
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(dispatchQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "jobreport-dispatch-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> {
+                    dispatchRejected.increment();
+                    if (!executor.isShutdown()) {
+                        task.run();
+                    }
+                });
+        this.dispatchExecutor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "jobreport-dispatch");
+
+        FunctionCounter.builder("jobreport.status.requests", statusFlights, SingleFlight::getExecutedCount)
+                .tag("result", "computed")
+                .register(meterRegistry);
+        FunctionCounter.builder("jobreport.status.requests", statusFlights, SingleFlight::getCoalescedCount)
+                .tag("result", "coalesced")
+                .register(meterRegistry);
     }
 
+    /**
+     * Grava o JOB_REPORT e o envio para a Lambda (LAMBDA_OUTBOX) na mesma transação, de modo
+     * que nenhum job fica sem despacho. Em seguida tenta a entrega imediata para devolver o
+     * session_id ao cliente; se ela falhar, o OutboxRelay entrega depois, com retries.
+     */
     public JobReportResponse createJobReport(JobReportRequest request, Long userId) throws Exception {
+        return createJobReport(request, userId, false);
+    }
+
+    /**
+     * Com async = true, retorna logo após o commit (sem session_id): a entrega imediata segue
+     * em segundo plano pelo HttpClient assíncrono, sem ocupar thread, e o session_id aparece
+     * depois no status do job.
+     */
+    public JobReportResponse createJobReport(JobReportRequest request, Long userId, boolean async) throws Exception {
         JobReport jobReport = new JobReport();
         jobReport.setIdUser(userId);
         jobReport.setCompany(request.getCompany());
         jobReport.setTitle(request.getTitle());
         jobReport.setDescription(request.getDescription());
 
-        jobReportDAO.save(jobReport);
+        String jobInfo;
+        String payload;
+        long outboxId;
+
+        try (Connection conn = oracleConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                jobReportDAO.save(conn, jobReport);
+
+                jobInfo = JobInfoUtil.buildJobInfo(jobReport);
+                // Cria o JSON com job_info, callback_url e job_report_id
+                payload = objectMapper.writeValueAsString(
+                        new LambdaRequest(jobInfo, request.getCallbackUrl(), jobReport.getIdJobReport()));
+
+                // Invisível para o relay durante o lease, enquanto a entrega imediata acontece
+                outboxId = outboxDao.insert(conn, jobReport.getIdJobReport(),
+                        LambdaClient.Endpoint.JOB_START.name(), payload, outboxLeaseMs);
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
 
-        String jobInfo = JobInfoUtil.buildJobInfo(jobReport);
+        long jobReportId = jobReport.getIdJobReport();
 
-        String sessionId = sendToLambda(jobInfo, request.getCallbackUrl(), jobReport.getIdJobReport());
+        if (async) {
+            // Roda na thread do dispatchExecutor que concluiu dispatchJobStartAsync
+            dispatchJobStartAsync(jobReportId, payload).whenComplete((sessionId, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    System.err.println("⚠️ Envio do job " + jobReportId + " para a Lambda adiado para o relay: " + cause.getMessage());
+                    releaseToRelay(outboxId, cause.getMessage());
+                } else {
+                    markDelivered(outboxId);
+                }
+            });
+            return new JobReportResponse(jobInfo, null, jobReportId);
+        }
 
-        if (sessionId != null) {
-            jobReportDAO.updateSessionId(jobReport.getIdJobReport(), sessionId);
-            return new JobReportResponse(jobInfo, sessionId, jobReport.getIdJobReport());
+        String sessionId;
+        try {
+            sessionId = dispatchJobStart(jobReportId, payload);
+        } catch (Exception e) {
+            System.err.println("⚠️ Envio do job " + jobReportId + " para a Lambda adiado para o relay: " + e.getMessage());
+            releaseToRelay(outboxId, e.getMessage());
+            return new JobReportResponse(jobInfo, null, jobReportId);
         }
 
-        return new JobReportResponse(jobInfo, null, jobReport.getIdJobReport());
+        markDelivered(outboxId);
+        return new JobReportResponse(jobInfo, sessionId, jobReportId);
     }
 
-    private String sendToLambda(String jobInfo, String callbackUrl, Long jobReportId) throws Exception {
-        HttpClient client = HttpClient.newHttpClient();
+    private void markDelivered(long outboxId) {
+        try {
+            outboxDao.markDelivered(outboxId);
+        } catch (SQLException e) {
+            // Entrega at-least-once: sem a marcação, o relay reenvia após o lease
+            System.err.println("⚠️ Falha ao marcar envio " + outboxId + " como entregue: " + e.getMessage());
+        }
+    }
 
-        // Cria o JSON com job_info, callback_url e job_report_id
-        String jsonBody = objectMapper.writeValueAsString(new LambdaRequest(jobInfo, callbackUrl, jobReportId));
+    /**
+     * Libera o envio para o relay na hora, sem esperar o lease. Se nem isso for possível,
+     * o envio continua protegido pelo lease e vence sozinho.
+     */
+    private void releaseToRelay(long outboxId, String error) {
+        try {
+            outboxDao.reschedule(outboxId, 0, error);
+        } catch (SQLException e) {
+            System.err.println("⚠️ Falha ao liberar envio " + outboxId + " para o relay: " + e.getMessage());
+        }
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(lambdaUrl))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
+    /**
+     * Entrega um envio da LAMBDA_OUTBOX (usado pelo OutboxRelay). O job-start não é idempotente:
+     * se o job já tem session_id, uma entrega anterior chegou à Lambda (só a marcação como
+     * entregue se perdeu) e o envio não é repetido.
+     */
+    public void deliverOutboxEntry(OutboxEntry entry) throws Exception {
+        if (!LambdaClient.Endpoint.JOB_START.name().equals(entry.getEndpoint())) {
+            throw new IllegalArgumentException("Endpoint de outbox não suportado: " + entry.getEndpoint());
+        }
+        if (jobReportDAO.findSessionId(entry.getIdJobReport()) != null) {
+            System.out.println("↪️ Outbox: job " + entry.getIdJobReport() + " já tem session_id; envio não repetido");
+            return;
+        }
+        dispatchJobStart(entry.getIdJobReport(), entry.getPayload());
+    }
+
+    /**
+     * Envia o job para a Lambda e grava o session_id retornado. Lança exceção se a Lambda não
+     * aceitar o envio (o chamador reagenda); uma resposta 200 sem session_id conta como entregue,
+     * pois o session_id também chega pelo callback audios-ready.
+     * O job_report_id vai como Idempotency-Key; se a Lambda o respeitar, ela descarta reenvios que
+     * ainda escapem (timeout de leitura, 5xx após processar). Do lado de cá, o que evita reenvio é
+     * o session_id gravado antes da marcação como entregue (ver deliverOutboxEntry).
+     */
+    private String dispatchJobStart(long jobReportId, String payload) throws Exception {
+        return handleJobStartResponse(jobReportId,
+                lambdaClient.post(LambdaClient.Endpoint.JOB_START, payload, String.valueOf(jobReportId)));
+    }
+
+    /**
+     * A resposta (ou a falha) é tratada no dispatchExecutor, não na thread do HttpClient:
+     * handleAsync troca de thread também no caso de erro. Só com a fila do dispatchExecutor cheia
+     * o updateSessionId e o markDelivered/releaseToRelay rodam na thread do HttpClient, para
+     * nunca serem descartados.
+     */
+    private CompletableFuture<String> dispatchJobStartAsync(long jobReportId, String payload) {
+        return lambdaClient.postAsync(LambdaClient.Endpoint.JOB_START, payload, String.valueOf(jobReportId))
+                .handleAsync((response, error) -> {
+                    if (error != null) {
+                        throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+                    }
+                    try {
+                        return handleJobStartResponse(jobReportId, response);
+                    } catch (SQLException e) {
+                        throw new CompletionException(e);
+                    }
+                }, dispatchExecutor);
+    }
+
+    private String handleJobStartResponse(long jobReportId, HttpResponse<String> response) throws SQLException {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Lambda retornou status " + response.statusCode() + ": " + response.body());
+        }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        
         // Tenta extrair session_id da resposta
-        if (response.statusCode() == 200) {
-            try {
-                LambdaResponse lambdaResponse = objectMapper.readValue(response.body(), LambdaResponse.class);
-                return lambdaResponse.getSessionId();
-            } catch (Exception e) {
-                // Se não conseguir parsear, retorna null
-                return null;
+        String sessionId;
+        try {
+            LambdaResponse lambdaResponse = objectMapper.readValue(response.body(), LambdaResponse.class);
+            sessionId = lambdaResponse.getSessionId();
+        } catch (Exception e) {
+            System.err.println("⚠️ Resposta da Lambda sem session_id válido (job " + jobReportId + "): " + response.body());
+            return null;
+        }
+
+        if (sessionId != null && !jobReportDAO.updateSessionId(jobReportId, sessionId)) {
+            // Reenvio processado pela Lambda: vale a sessão gravada primeiro, que o cliente já conhece
+            String stored = jobReportDAO.findSessionId(jobReportId);
+            if (stored != null && !stored.equals(sessionId)) {
+                System.err.println("⚠️ Job " + jobReportId + " já tinha session_id " + stored + "; sessão duplicada " + sessionId + " ignorada");
             }
+            return stored;
         }
-        
-        return null;
+        return sessionId;
     }
 
     public void saveAudioPaths(Long jobReportId, List<String> audioFiles) throws Exception {
-        for (String s3Path : audioFiles) {
-            // Extrai o nome do arquivo do path
-            String fileName = s3Path.substring(s3Path.lastIndexOf('/') + 1);
-            audioFileDao.save(jobReportId, s3Path, fileName);
+        // Um único batch/transação para todos os áudios do callback
+        audioFileDao.saveAll(jobReportId, audioFiles);
+
+        // Transição PENDING -> AUDIOS_READY (no-op se o job já estiver adiante)
+        if (jobReportDAO.markAudiosReady(jobReportId)) {
+            System.out.println("Job report " + jobReportId + ": PENDING -> AUDIOS_READY");
+            statusNotifier.publish(jobReportId, JobReportStatus.AUDIOS_READY);
+        }
+    }
+
+    /**
+     * ETag das respostas de status/presigned URLs, sem carregar áudios nem assinar URLs.
+     * Inclui uma janela de tempo (status.etag.window-seconds) para que o cliente não reutilize
+     * presigned URLs além da validade: TTL do cache + janela deve ficar abaixo da validade da assinatura,
+     * com folga. Respostas com falha de presign não levam ETag (ver JobReportController).
+     * Também é a verificação de dono: retorna null se o job não existir ou for de outro usuário.
+     */
+    public String getStatusETag(Long jobReportId, Long userId) throws Exception {
+        String version = jobReportDAO.findStateVersion(jobReportId, userId);
+        if (version == null) {
+            return null;
+        }
+        long window = System.currentTimeMillis() / (Math.max(1, statusETagWindowSeconds) * 1000);
+        return version + "-" + window;
+    }
+
+    /**
+     * Lança IllegalArgumentException (404) se o job não existir ou for de outro usuário,
+     * sem distinguir os dois casos para não revelar quais ids existem.
+     */
+    public void checkOwnership(Long jobReportId, Long userId) throws Exception {
+        if (!jobReportDAO.isOwnedBy(jobReportId, userId)) {
+            throw new IllegalArgumentException("Job report not found: " + jobReportId);
+        }
+    }
+
+    /**
+     * Status atual do job (uma leitura por chave primária, sem áudios nem presign).
+     */
+    public JobReportStatus getCurrentStatus(Long jobReportId) throws Exception {
+        JobReport jobReport = jobReportDAO.findById(jobReportId);
+        if (jobReport == null) {
+            throw new IllegalArgumentException("Job report not found: " + jobReportId);
         }
+        return jobReport.getStatus();
     }
 
+    /**
+     * Requisições simultâneas para o mesmo job (várias abas, front + polling) compartilham
+     * uma única computação e recebem o mesmo resultado.
+     */
     public JobReportStatusResponse getStatus(Long jobReportId) throws Exception {
+        return statusFlights.execute(jobReportId, () -> computeStatus(jobReportId));
+    }
+
+    private JobReportStatusResponse computeStatus(Long jobReportId) throws Exception {
+        // O status é materializado pelos callbacks: basta a leitura por chave primária
         JobReport jobReport = jobReportDAO.findById(jobReportId);
         if (jobReport == null) {
             throw new IllegalArgumentException("Job report not found: " + jobReportId);
         }
 
+        JobReportStatus status = jobReport.getStatus();
+        if (status == JobReportStatus.PENDING || status == JobReportStatus.DISPATCH_FAILED) {
+            // Na criação assíncrona, o session_id aparece aqui quando o envio para a Lambda termina
+            JobReportStatusResponse response = new JobReportStatusResponse(toResponseStatus(status));
+            response.setSessionId(jobReport.getSessionId());
+            return response;
+        }
+
+        // Leitura pura: a verificação do relatório na Lambda fica com o ReportReadinessPoller
+        List<PresignedUrlResponse> audioUrls = loadAudioUrls(jobReportId);
+        String reportUrl = status == JobReportStatus.REPORT_READY ? jobReport.getReportUrl() : null;
+
+        JobReportStatusResponse response = new JobReportStatusResponse(toResponseStatus(status), audioUrls, reportUrl);
+        response.setSessionId(jobReport.getSessionId());
+        return response;
+    }
+
+    /**
+     * Lista os jobs do usuário em páginas por cursor (keyset). O cursor é opaco para o
+     * cliente: o último id da página, em Base64 URL-safe. next_cursor é null na última página.
+     */
+    public JobReportPageResponse listUserJobReports(Long userId, String cursor, Integer pageSize) throws Exception {
+        int limit = pageSize != null ? pageSize : listDefaultPageSize;
+        if (limit < 1 || limit > listMaxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + listMaxPageSize);
+        }
+        Long beforeId = decodeCursor(cursor);
+
+        // Busca um registro a mais para saber se existe próxima página
+        List<JobReport> jobs = jobReportDAO.findPageByUser(userId, beforeId, limit + 1);
+        boolean hasMore = jobs.size() > limit;
+        if (hasMore) {
+            jobs = jobs.subList(0, limit);
+        }
+
+        List<JobReportSummaryResponse> items = new ArrayList<>(jobs.size());
+        for (JobReport job : jobs) {
+            JobReportSummaryResponse item = new JobReportSummaryResponse();
+            item.setJobReportId(job.getIdJobReport());
+            item.setCompany(job.getCompany());
+            item.setTitle(job.getTitle());
+            item.setSessionId(job.getSessionId());
+            item.setStatus(toResponseStatus(job.getStatus()));
+            item.setCreatedAt(job.getCreatedAt());
+            items.add(item);
+        }
+
+        String nextCursor = hasMore ? encodeCursor(jobs.get(jobs.size() - 1).getIdJobReport()) : null;
+        return new JobReportPageResponse(items, nextCursor);
+    }
+
+    private String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(decoded);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Status de vários jobs do usuário com uma consulta IN em JOB_REPORT e outra em AUDIO_FILES
+     * (só dos jobs do usuário que já têm áudios), no mesmo formato do /status/{id}. Os áudios de
+     * todos os jobs são assinados de uma vez, com o cache e o prazo único do presign: itens que
+     * não ficam prontos no prazo voltam com error, e o cliente os busca por job
+     * (/audios/{id}/presigned-urls). Ids repetidos são considerados uma vez; ids inexistentes
+     * ou de outros usuários vão para not_found.
+     */
+    public JobReportStatusBatchResponse getStatuses(List<Long> jobReportIds, Long userId) throws Exception {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(jobReportIds));
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("job_report_ids is required");
+        }
+        if (ids.size() > statusBatchMaxIds) {
+            throw new IllegalArgumentException("At most " + statusBatchMaxIds + " job_report_ids per request");
+        }
+
+        Map<Long, JobReport> jobs = jobReportDAO.findStatusesByIds(ids, userId);
+
+        // Como no /status/{id}, jobs em PENDING ou DISPATCH_FAILED não têm áudios
+        List<Long> withAudios = new ArrayList<>();
+        for (JobReport job : jobs.values()) {
+            if (job.getStatus() != JobReportStatus.PENDING && job.getStatus() != JobReportStatus.DISPATCH_FAILED) {
+                withAudios.add(job.getIdJobReport());
+            }
+        }
+        Map<Long, List<PresignedUrlResponse>> audioUrls = loadAudioUrls(withAudios);
+
+        Map<Long, JobReportStatusResponse> statuses = new LinkedHashMap<>();
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : ids) {
+            JobReport job = jobs.get(id);
+            if (job == null) {
+                notFound.add(id);
+                continue;
+            }
+
+            JobReportStatus status = job.getStatus();
+            List<PresignedUrlResponse> urls = withAudios.contains(id) ? audioUrls.getOrDefault(id, List.of()) : null;
+            String reportUrl = status == JobReportStatus.REPORT_READY ? job.getReportUrl() : null;
+            JobReportStatusResponse response = new JobReportStatusResponse(toResponseStatus(status), urls, reportUrl);
+            response.setSessionId(job.getSessionId());
+            statuses.put(id, response);
+        }
+
+        return new JobReportStatusBatchResponse(statuses, notFound);
+    }
+
+    /**
+     * Áudios de vários jobs (uma consulta IN) assinados numa única chamada a generatePresignedUrls,
+     * e devolvidos agrupados por job.
+     */
+    private Map<Long, List<PresignedUrlResponse>> loadAudioUrls(List<Long> jobReportIds) throws Exception {
+        Map<Long, List<PresignedUrlResponse>> result = new LinkedHashMap<>();
+        if (jobReportIds.isEmpty()) {
+            return result;
+        }
+
+        List<AudioFile> audioFiles = new ArrayList<>();
+        audioFileDao.findByJobReportIds(jobReportIds).values().forEach(audioFiles::addAll);
+
+        List<PresignedUrlResponse> urls;
+        try {
+            urls = generatePresignedUrls(audioFiles);
+        } catch (Exception e) {
+            System.err.println("ERRO ao gerar presigned URLs: " + e.getMessage());
+            return result;
+        }
+
+        // generatePresignedUrls devolve na mesma ordem da entrada
+        for (int i = 0; i < audioFiles.size(); i++) {
+            result.computeIfAbsent(audioFiles.get(i).getIdJobReport(), k -> new ArrayList<>()).add(urls.get(i));
+        }
+        return result;
+    }
+
+    private List<PresignedUrlResponse> loadAudioUrls(Long jobReportId) throws Exception {
         List<AudioFile> audioFiles = audioFileDao.findByJobReportId(jobReportId);
-        
-        System.out.println("=== GET STATUS para Job Report " + jobReportId + " ===");
-        System.out.println("Áudios encontrados: " + audioFiles.size());
-        
-        // Remove duplicatas baseado no S3_PATH (mantém apenas o mais recente)
-        if (audioFiles.size() > 0) {
-            Map<String, AudioFile> uniqueAudios = new LinkedHashMap<>();
-            for (AudioFile audio : audioFiles) {
-                String s3Path = audio.getS3Path();
-                // Se já existe, mantém o mais recente (baseado no CREATED_AT)
-                if (!uniqueAudios.containsKey(s3Path) || 
-                    (audio.getCreatedAt() != null && uniqueAudios.get(s3Path).getCreatedAt() != null &&
-                     audio.getCreatedAt().after(uniqueAudios.get(s3Path).getCreatedAt()))) {
-                    uniqueAudios.put(s3Path, audio);
+        try {
+            return generatePresignedUrls(audioFiles);
+        } catch (Exception e) {
+            System.err.println("ERRO ao gerar presigned URLs: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    private JobReportStatusResponse.Status toResponseStatus(JobReportStatus status) {
+        return JobReportStatusResponse.Status.valueOf(status.name());
+    }
+
+    public List<PresignedUrlResponse> generatePresignedUrls(List<AudioFile> audioFiles) {
+        PresignedUrlResponse[] responses = new PresignedUrlResponse[audioFiles.size()];
+        List<Integer> missIndexes = new ArrayList<>();
+        List<AudioFile> misses = new ArrayList<>();
+
+        // Reaproveita URLs ainda válidas; só os arquivos sem cache são assinados de novo
+        for (int i = 0; i < audioFiles.size(); i++) {
+            AudioFile audioFile = audioFiles.get(i);
+            String cachedUrl = presignedUrlCache.get(audioFile.getS3Path());
+            if (cachedUrl != null) {
+                responses[i] = new PresignedUrlResponse(audioFile.getS3Path(), cachedUrl, audioFile.getFileName());
+            } else {
+                missIndexes.add(i);
+                misses.add(audioFile);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            boolean local = "local".equalsIgnoreCase(presignMode);
+            List<PresignedUrlResponse> generated = local
+                    ? generatePresignedUrlsLocally(misses)
+                    : generatePresignedUrlsViaLambda(misses);
+            // Só conhecemos a expiração das credenciais quando a assinatura é local
+            Instant credentialsExpiration = local ? s3Service.credentialsExpiration() : null;
+
+            for (int i = 0; i < generated.size(); i++) {
+                PresignedUrlResponse response = generated.get(i);
+                if (response.getPresignedUrl() != null) {
+                    presignedUrlCache.put(response.getS3Path(), response.getPresignedUrl(), credentialsExpiration);
                 }
+                responses[missIndexes.get(i)] = response;
             }
-            audioFiles = new ArrayList<>(uniqueAudios.values());
-            System.out.println("Áudios únicos após remoção de duplicatas: " + audioFiles.size());
         }
-        
-        System.out.println("Session ID: " + jobReport.getSessionId());
-        
-        JobReportStatusResponse.Status status;
-        List<PresignedUrlResponse> audioUrls = null;
-        String reportUrl = null;
-
-        if (audioFiles.isEmpty()) {
-            status = JobReportStatusResponse.Status.PENDING;
-            System.out.println("Status: PENDING (nenhum áudio encontrado)");
-        } else {
+
+        return new ArrayList<>(Arrays.asList(responses));
+    }
+
+    /**
+     * Assina as URLs no próprio processo (S3Service), sem chamada de rede.
+     */
+    private List<PresignedUrlResponse> generatePresignedUrlsLocally(List<AudioFile> audioFiles) {
+        List<PresignedUrlResponse> responses = new ArrayList<>(audioFiles.size());
+        for (AudioFile audioFile : audioFiles) {
             try {
-                audioUrls = generatePresignedUrls(audioFiles);
-                System.out.println("URLs pré-assinadas geradas: " + (audioUrls != null ? audioUrls.size() : 0));
+                String presignedUrl = s3Service.generatePresignedDownloadUrl(audioFile.getS3Path());
+                responses.add(new PresignedUrlResponse(audioFile.getS3Path(), presignedUrl, audioFile.getFileName()));
             } catch (Exception e) {
-                System.err.println("ERRO ao gerar presigned URLs: " + e.getMessage());
-                e.printStackTrace();
-                // Mesmo com erro, define status como AUDIOS_READY se houver áudios salvos
-                audioUrls = new ArrayList<>();
-            }
-            
-            // Verifica se relatório está pronto
-            // Prioridade 1: Verifica se já tem URL salva no banco (via callback)
-            if (jobReport.getReportUrl() != null && !jobReport.getReportUrl().isEmpty()) {
-                reportUrl = jobReport.getReportUrl();
-                status = JobReportStatusResponse.Status.REPORT_READY;
-                System.out.println("Status: REPORT_READY (URL do banco)");
+                System.err.println("ERRO ao assinar URL para " + audioFile.getS3Path() + ": " + e.getMessage());
+                responses.add(new PresignedUrlResponse(audioFile.getS3Path(), null, audioFile.getFileName(), e.getMessage()));
             }
-            // Prioridade 2: Verifica via Lambda (polling/fallback)
-            else if (jobReport.getSessionId() != null && lambdaCheckReportUrl != null && !lambdaCheckReportUrl.isEmpty()) {
-                try {
-                    reportUrl = checkOrGenerateReport(jobReport.getSessionId());
-                    if (reportUrl != null && !reportUrl.isEmpty()) {
-                        // Salva no banco para não precisar verificar novamente
-                        try {
-                            jobReportDAO.updateReportUrl(jobReport.getIdJobReport(), reportUrl);
-                        } catch (Exception e) {
-                            System.err.println("⚠️ Erro ao salvar reportUrl no banco: " + e.getMessage());
-                        }
-                    status = JobReportStatusResponse.Status.REPORT_READY;
-                        System.out.println("Status: REPORT_READY (verificado via Lambda)");
-                    } else {
-                        status = JobReportStatusResponse.Status.AUDIOS_READY;
-                        System.out.println("Status: AUDIOS_READY (relatório ainda não gerado)");
-                    }
-                } catch (Exception e) {
-                    status = JobReportStatusResponse.Status.AUDIOS_READY;
-                    System.out.println("Status: AUDIOS_READY (erro ao verificar relatório: " + e.getMessage() + ")");
+        }
+        return responses;
+    }
+
+    /**
+     * Gera as presigned URLs de download em paralelo (no máximo lambda.presign.max-concurrency
+     * chamadas simultâneas) e respeita um prazo total. Itens que falham ou não terminam no prazo
+     * voltam sem URL e com o campo error preenchido, sem bloquear os demais. A espera por vaga
+     * no bulkhead global do presign (lambda.presign.max-wait-ms) também desconta do prazo: itens
+     * que chegam à vez depois dele não são enviados.
+     */
+    private List<PresignedUrlResponse> generatePresignedUrlsViaLambda(List<AudioFile> audioFiles) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(presignDeadlineMs);
+        Semaphore permits = new Semaphore(presignMaxConcurrency);
+        List<CompletableFuture<String>> futures = new ArrayList<>(audioFiles.size());
+
+        for (AudioFile audioFile : audioFiles) {
+            CompletableFuture<String> future;
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0 && permits.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                    // Guarda o próprio future da chamada (e não um estágio derivado), para que
+                    // o cancel no fim do prazo chegue até a requisição HTTP
+                    long maxWaitMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    future = generatePresignedDownloadUrlAsync(audioFile.getS3Path(), maxWaitMs);
+                    future.whenComplete((url, error) -> permits.release());
+                } else {
+                    future = CompletableFuture.failedFuture(new TimeoutException("Prazo esgotado antes do envio"));
                 }
-            } else {
-                status = JobReportStatusResponse.Status.AUDIOS_READY;
-                System.out.println("Status: AUDIOS_READY (sem session_id)");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future = CompletableFuture.failedFuture(e);
             }
+            futures.add(future);
         }
 
-        System.out.println("=== FIM GET STATUS ===");
-        return new JobReportStatusResponse(status, audioUrls, reportUrl);
-    }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Erros e atrasos são tratados item a item abaixo
+        }
 
-    public List<PresignedUrlResponse> generatePresignedUrls(List<AudioFile> audioFiles) {
-        return audioFiles.stream()
-                .map(audioFile -> {
-                    try {
-                        // Chama a Lambda para gerar presigned URL de download
-                        String presignedUrl = generatePresignedDownloadUrl(audioFile.getS3Path());
-                        return new PresignedUrlResponse(audioFile.getS3Path(), presignedUrl, audioFile.getFileName());
-                    } catch (Exception e) {
-                        System.err.println("ERRO ao gerar presigned URL para " + audioFile.getS3Path() + ": " + e.getMessage());
-                        e.printStackTrace();
-                        // Retorna uma resposta sem presigned URL em caso de erro
-                        return new PresignedUrlResponse(audioFile.getS3Path(), null, audioFile.getFileName());
-                    }
-                })
-                .filter(response -> response != null)
-                .collect(Collectors.toList());
-    }
+        List<PresignedUrlResponse> responses = new ArrayList<>(audioFiles.size());
+        for (int i = 0; i < audioFiles.size(); i++) {
+            AudioFile audioFile = audioFiles.get(i);
+            CompletableFuture<String> future = futures.get(i);
+            String error;
 
-    private String generatePresignedDownloadUrl(String s3Path) throws Exception {
-        HttpClient client = HttpClient.newHttpClient();
+            if (!future.isDone()) {
+                future.cancel(true);
+                error = "Tempo limite excedido ao gerar presigned URL";
+            } else {
+                try {
+                    responses.add(new PresignedUrlResponse(audioFile.getS3Path(), future.join(), audioFile.getFileName()));
+                    continue;
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    error = cause.getMessage();
+                }
+            }
 
-        // Cria o JSON com s3_path para download
-        Map<String, String> requestBody = new HashMap<>();
-        requestBody.put("s3_path", s3Path);
-        String jsonBody = objectMapper.writeValueAsString(requestBody);
+            System.err.println("ERRO ao gerar presigned URL para " + audioFile.getS3Path() + ": " + error);
+            // Retorna uma resposta sem presigned URL em caso de erro
+            responses.add(new PresignedUrlResponse(audioFile.getS3Path(), null, audioFile.getFileName(), error));
+        }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(lambdaPresignedUrl))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
+        return responses;
+    }
+
+    private CompletableFuture<String> generatePresignedDownloadUrlAsync(String s3Path, long maxWaitMs) {
+        String jsonBody;
+        try {
+            // Cria o JSON com s3_path para download
+            Map<String, String> requestBody = new HashMap<>();
+            requestBody.put("s3_path", s3Path);
+            jsonBody = objectMapper.writeValueAsString(requestBody);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        // Bulkhead cheio: espera por vaga (nesta thread) até lambda.presign.max-wait-ms, sem passar
+        // de maxWaitMs; circuito aberto ou vaga não obtida: falha e o item volta com error
+        CompletableFuture<HttpResponse<String>> call =
+                lambdaClient.postAsync(LambdaClient.Endpoint.PRESIGN, jsonBody, null, maxWaitMs);
+        CompletableFuture<String> url = call.thenApply(this::parsePresignedDownloadResponse);
+        // O cancel não sobe pelos estágios do CompletableFuture: repassa para a chamada à Lambda
+        url.whenComplete((presignedUrl, error) -> {
+            if (url.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return url;
+    }
 
+    private String parsePresignedDownloadResponse(HttpResponse<String> response) {
         if (response.statusCode() != 200) {
-            throw new Exception("Failed to get presigned URL from Lambda: " + response.body());
+            throw new IllegalStateException("Failed to get presigned URL from Lambda: " + response.body());
         }
 
         // Parse da resposta da Lambda
@@ -254,10 +707,10 @@ public class JobReportService {
             if (bodyNode.has("presigned_url")) {
                 return bodyNode.get("presigned_url").asText();
             } else {
-                throw new Exception("Lambda response missing presigned_url: " + bodyStr);
+                throw new IllegalStateException("Lambda response missing presigned_url: " + bodyStr);
             }
         } catch (Exception e) {
-            throw new Exception("Failed to parse Lambda response: " + responseBody, e);
+            throw new IllegalStateException("Failed to parse Lambda response: " + responseBody, e);
         }
     }
 
@@ -265,8 +718,21 @@ public class JobReportService {
         jobReportDAO.updateSessionId(jobReportId, sessionId);
     }
 
+    /**
+     * Estado final de um job cujo envio para a Lambda foi abandonado (outbox FAILED).
+     * No-op se o job já saiu de PENDING (a Lambda recebeu o job por outro caminho).
+     */
+    public void markDispatchFailed(Long jobReportId) throws Exception {
+        if (jobReportDAO.markDispatchFailed(jobReportId)) {
+            System.err.println("Job report " + jobReportId + ": PENDING -> DISPATCH_FAILED");
+            statusNotifier.publish(jobReportId, JobReportStatus.DISPATCH_FAILED);
+        }
+    }
+
     public void updateReportUrl(Long jobReportId, String reportUrl) throws Exception {
-        jobReportDAO.updateReportUrl(jobReportId, reportUrl);
+        if (jobReportDAO.updateReportUrl(jobReportId, reportUrl)) {
+            statusNotifier.publish(jobReportId, JobReportStatus.REPORT_READY);
+        }
     }
     
     public void migrateReportUrlColumn() throws Exception {
@@ -274,18 +740,10 @@ public class JobReportService {
     }
 
     public PresignedUploadUrlResponse generatePresignedUploadUrl(String sessionId, String filename) throws Exception {
-        HttpClient client = HttpClient.newHttpClient();
-
         // Cria o JSON com session_id e filename
         String jsonBody = objectMapper.writeValueAsString(new PresignedUrlLambdaRequest(sessionId, filename));
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(lambdaPresignedUrl))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = lambdaClient.post(LambdaClient.Endpoint.PRESIGN, jsonBody);
 
         if (response.statusCode() != 200) {
             throw new Exception("Failed to get presigned URL from Lambda: " + response.body());
@@ -319,8 +777,6 @@ public class JobReportService {
     }
 
     public com.backend.gs.dto.GenerateUploadUrlsResponse generateMultipleUploadUrls(Long jobReportId, Integer numQuestions, String callbackUrl) throws Exception {
-        HttpClient client = HttpClient.newHttpClient();
-
         // Cria o payload para a Lambda
         Map<String, Object> payload = new HashMap<>();
         payload.put("job_report_id", jobReportId);
@@ -329,13 +785,7 @@ public class JobReportService {
         
         String jsonBody = objectMapper.writeValueAsString(payload);
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(lambdaUploadUrlsUrl))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = lambdaClient.post(LambdaClient.Endpoint.UPLOAD_URLS, jsonBody);
 
         if (response.statusCode() != 200) {
             throw new Exception("Failed to get upload URLs from Lambda: " + response.body());
@@ -373,38 +823,50 @@ public class JobReportService {
         }
     }
 
+    public boolean isReportCheckEnabled() {
+        return lambdaClient.isConfigured(LambdaClient.Endpoint.CHECK_REPORT);
+    }
+
+    /**
+     * Falso enquanto o circuito do job-start estiver aberto: o OutboxRelay pula o ciclo.
+     */
+    public boolean isJobStartAvailable() {
+        return lambdaClient.getState(LambdaClient.Endpoint.JOB_START) != CircuitBreaker.State.OPEN;
+    }
+
+    /**
+     * Falso enquanto o circuito da Lambda CheckReportStatus estiver aberto: o poller pula o ciclo
+     * e os jobs continuam em AUDIOS_READY até a Lambda voltar.
+     */
+    public boolean isReportCheckAvailable() {
+        return isReportCheckEnabled()
+                && lambdaClient.getState(LambdaClient.Endpoint.CHECK_REPORT) != CircuitBreaker.State.OPEN;
+    }
+
     /**
      * Verifica se o relatório existe chamando a Lambda CheckReportStatus
      * Retorna a URL do relatório se existir, ou null se ainda não foi gerado
      */
-    private String checkOrGenerateReport(String sessionId) throws Exception {
+    public String checkOrGenerateReport(String sessionId) throws Exception {
         if (sessionId == null || sessionId.isEmpty()) {
             return null;
         }
 
-        if (lambdaCheckReportUrl == null || lambdaCheckReportUrl.isEmpty()) {
+        if (!isReportCheckEnabled()) {
             System.err.println("⚠️ Lambda CheckReportStatus não configurada");
             return null;
         }
 
-        HttpClient client = HttpClient.newHttpClient();
-
         // Payload para a Lambda
         Map<String, Object> payload = new HashMap<>();
         payload.put("session_id", sessionId);
         
         String jsonBody = objectMapper.writeValueAsString(payload);
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(lambdaCheckReportUrl))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
-
         try {
             System.out.println("🔍 Verificando relatório via Lambda: " + sessionId);
             
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = lambdaClient.post(LambdaClient.Endpoint.CHECK_REPORT, jsonBody);
 
             if (response.statusCode() == 200) {
                 // Parse da resposta
@@ -482,4 +944,9 @@ public class JobReportService {
         public Integer getExpires_in() { return expires_in; }
         public void setExpires_in(Integer expires_in) { this.expires_in = expires_in; }
     }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchExecutor.shutdown();
+    }
 }
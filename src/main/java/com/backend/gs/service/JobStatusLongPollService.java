@@ -0,0 +1,119 @@
+package com.backend.gs.service;
+
+import com.backend.gs.dto.JobReportStatusResponse;
+import com.backend.gs.model.JobReportStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-poll do status: a requisição fica estacionada (DeferredResult, sem thread do servlet presa)
+ * até o job chegar ao status esperado ou o tempo limite acabar. Em ambos os casos a resposta
+ * é o status completo atual, no mesmo formato do GET /status/{id}. As respostas disparadas por
+ * transição são montadas num pool limitado (longpoll.completion-threads + longpoll.queue-capacity);
+ * com pool e fila cheios a requisição é encerrada na hora com 503.
+ */
+@Service
+public class JobStatusLongPollService {
+
+    private final JobReportService jobReportService;
+    private final JobStatusNotifier notifier;
+    private final ExecutorService completionExecutor;
+    private final Counter rejected;
+
+    @Value("${longpoll.max-timeout-seconds:60}")
+    private long maxTimeoutSeconds;
+
+    public JobStatusLongPollService(JobReportService jobReportService, JobStatusNotifier notifier,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${longpoll.completion-threads:4}") int completionThreads,
+                                    @Value("${longpoll.queue-capacity:500}") int queueCapacity) {
+        this.jobReportService = jobReportService;
+        this.notifier = notifier;
+
+        // Monta a resposta fora da thread do callback que disparou a transição
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                completionThreads, completionThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "status-longpoll-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.completionExecutor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "status-longpoll");
+        this.rejected = meterRegistry.counter("longpoll.completions.rejected");
+    }
+
+    /**
+     * Lança IllegalArgumentException se o job não existir.
+     */
+    public DeferredResult<ResponseEntity<JobReportStatusResponse>> waitFor(
+            long jobReportId, JobReportStatus target, long timeoutSeconds) throws Exception {
+
+        long timeoutMs = Math.max(1, Math.min(timeoutSeconds, maxTimeoutSeconds)) * 1000;
+        DeferredResult<ResponseEntity<JobReportStatusResponse>> result =
+                new DeferredResult<>(timeoutMs, () -> currentStatusResponse(jobReportId));
+        AtomicBoolean triggered = new AtomicBoolean();
+
+        // Registra antes de ler o status atual para não perder uma transição no meio do caminho
+        Runnable unsubscribe = notifier.subscribe(jobReportId, status -> {
+            if (status.ordinal() >= target.ordinal() && triggered.compareAndSet(false, true)) {
+                complete(result, jobReportId);
+            }
+        });
+        result.onCompletion(unsubscribe);
+
+        try {
+            JobReportStatus current = jobReportService.getCurrentStatus(jobReportId);
+            if (current.ordinal() >= target.ordinal() && triggered.compareAndSet(false, true)) {
+                result.setResult(currentStatusResponse(jobReportId));
+            }
+        } catch (Exception e) {
+            unsubscribe.run();
+            throw e;
+        }
+
+        return result;
+    }
+
+    private void complete(DeferredResult<ResponseEntity<JobReportStatusResponse>> result, long jobReportId) {
+        try {
+            completionExecutor.execute(() -> result.setResult(currentStatusResponse(jobReportId)));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.setResult(ResponseEntity.status(503).build());
+        }
+    }
+
+    private ResponseEntity<JobReportStatusResponse> currentStatusResponse(long jobReportId) {
+        try {
+            return ResponseEntity.ok(jobReportService.getStatus(jobReportId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            System.err.println("❌ ERRO ao buscar status (long-poll): " + e.getMessage());
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        completionExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+package com.backend.gs.service;
+
+import com.backend.gs.dao.JobReportDao;
+import com.backend.gs.model.JobReportStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * Publica as transições de status dos jobs para quem estiver ouvindo neste nó
+ * (streams SSE, requisições em long-poll). As transições são publicadas por quem as grava
+ * no banco (callbacks e poller de relatórios). Como a gravação pode acontecer em outra
+ * instância (fila de callbacks, poller), o status dos jobs ouvidos aqui também é relido
+ * do banco a cada jobstatus.sync-ms e republicado; os listeners ignoram o que já viram.
+ */
+@Component
+public class JobStatusNotifier {
+
+    private final JobReportDao jobReportDao;
+    private final Map<Long, Set<Consumer<JobReportStatus>>> listeners = new ConcurrentHashMap<>();
+
+    public JobStatusNotifier(JobReportDao jobReportDao) {
+        this.jobReportDao = jobReportDao;
+    }
+
+    /**
+     * Registra um listener para o job. Retorna a ação que cancela o registro.
+     */
+    public Runnable subscribe(long jobReportId, Consumer<JobReportStatus> listener) {
+        listeners.computeIfAbsent(jobReportId, id -> new CopyOnWriteArraySet<>()).add(listener);
+        return () -> listeners.computeIfPresent(jobReportId, (id, set) -> {
+            set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public void publish(long jobReportId, JobReportStatus status) {
+        Set<Consumer<JobReportStatus>> subscribers = listeners.get(jobReportId);
+        if (subscribers == null) {
+            return;
+        }
+        for (Consumer<JobReportStatus> listener : subscribers) {
+            try {
+                listener.accept(status);
+            } catch (Exception e) {
+                System.err.println("⚠️ Erro ao notificar status do job " + jobReportId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Relê do banco o status dos jobs com listeners neste nó (uma consulta IN) e publica,
+     * para que transições gravadas por outra instância também cheguem aqui.
+     */
+    @Scheduled(fixedDelayString = "${jobstatus.sync-ms:5000}", initialDelayString = "${jobstatus.sync-ms:5000}")
+    public void syncFromDatabase() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+
+        Map<Long, JobReportStatus> statuses;
+        try {
+            statuses = jobReportDao.findStatuses(new ArrayList<>(listeners.keySet()));
+        } catch (Exception e) {
+            System.err.println("⚠️ Erro ao reler status dos jobs ouvidos: " + e.getMessage());
+            return;
+        }
+
+        statuses.forEach(this::publish);
+    }
+}
@@ -0,0 +1,150 @@
+package com.backend.gs.service;
+
+import com.backend.gs.model.JobReportStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams SSE (text/event-stream) com as transições de status de um job.
+ * Cada evento usa o nome do status como id, então um cliente que reconecta com Last-Event-ID
+ * só recebe o que ainda não viu. O número de streams abertos por nó é limitado por sse.max-streams.
+ */
+@Service
+public class JobStatusStreamService {
+
+    private final JobReportService jobReportService;
+    private final JobStatusNotifier notifier;
+    private final Set<StatusStream> streams = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    @Value("${sse.max-streams:500}")
+    private int maxStreams;
+
+    @Value("${sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public JobStatusStreamService(JobReportService jobReportService, JobStatusNotifier notifier,
+                                  MeterRegistry meterRegistry) {
+        this.jobReportService = jobReportService;
+        this.notifier = notifier;
+        Gauge.builder("jobreport.sse.open.streams", openStreams, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Abre um stream para o job. Retorna null se o cliente já recebeu o estado final
+     * (Last-Event-ID = REPORT_READY ou DISPATCH_FAILED), caso em que não há mais nada a enviar.
+     * Lança IllegalArgumentException se o job não existir e IllegalStateException
+     * se o limite de streams do nó já foi atingido.
+     */
+    public SseEmitter open(long jobReportId, String lastEventId) throws Exception {
+        int lastSeen = parseLastEventId(lastEventId);
+        if (lastSeen >= JobReportStatus.REPORT_READY.ordinal()) {
+            return null;
+        }
+
+        if (openStreams.incrementAndGet() > maxStreams) {
+            openStreams.decrementAndGet();
+            throw new IllegalStateException("Limite de streams SSE atingido");
+        }
+
+        StatusStream stream = new StatusStream(jobReportId, new SseEmitter(timeoutMs), lastSeen);
+        streams.add(stream);
+        stream.emitter.onCompletion(stream::close);
+        stream.emitter.onTimeout(stream::close);
+        stream.emitter.onError(error -> stream.close());
+
+        try {
+            // Registra antes de ler o status atual para não perder uma transição no meio do caminho
+            stream.unsubscribe = notifier.subscribe(jobReportId, stream::send);
+            stream.send(jobReportService.getCurrentStatus(jobReportId));
+        } catch (Exception e) {
+            stream.close();
+            throw e;
+        }
+
+        return stream.emitter;
+    }
+
+    @Scheduled(fixedRateString = "${sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (StatusStream stream : streams) {
+            try {
+                stream.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                stream.emitter.completeWithError(e);
+                stream.close();
+            }
+        }
+    }
+
+    private int parseLastEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return JobReportStatus.valueOf(lastEventId.trim()).ordinal();
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private class StatusStream {
+        private final long jobReportId;
+        private final SseEmitter emitter;
+        private int lastSent;
+        private boolean closed;
+        private volatile Runnable unsubscribe;
+
+        private StatusStream(long jobReportId, SseEmitter emitter, int lastSent) {
+            this.jobReportId = jobReportId;
+            this.emitter = emitter;
+            this.lastSent = lastSent;
+        }
+
+        /**
+         * Envia o status só se for uma transição nova (o status nunca regride).
+         * No estado final o stream é encerrado.
+         */
+        private synchronized void send(JobReportStatus status) {
+            if (closed || status == null || status.ordinal() <= lastSent) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(status.name())
+                        .name("status")
+                        .data(Map.of("job_report_id", jobReportId, "status", status.name())));
+                lastSent = status.ordinal();
+                if (status.isFinal()) {
+                    // O cliente reconecta com Last-Event-ID = estado final e recebe 204 (fim do stream)
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                close();
+            }
+        }
+
+        private synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (unsubscribe != null) {
+                unsubscribe.run();
+            }
+            streams.remove(this);
+            openStreams.decrementAndGet();
+        }
+    }
+}
@@ -2,14 +2,24 @@ package com.backend.gs.service;
 
 import com.backend.gs.config.JwtProperties;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 @Service
@@ -18,9 +28,37 @@ public class JwtService {
     @Autowired
     private JwtProperties jwtProperties;
 
-    private SecretKey getSigningKey() {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Chave e parser são imutáveis e thread-safe: montados uma única vez
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Claims já verificadas, indexadas pelo SHA-256 do token (o token em si não fica em memória).
+    // LRU limitado por jwt.claims-cache-max-size; cada entrada expira junto com o token (exp).
+    private Map<String, CachedClaims> claimsCache;
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
+    @PostConstruct
+    public void init() {
         byte[] keyBytes = jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+
+        int maxSize = jwtProperties.getClaimsCacheMaxSize();
+        claimsCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedClaims> eldest) {
+                return size() > maxSize;
+            }
+        };
+        cacheHits = meterRegistry.counter("jwt.claims.cache.requests", "result", "hit");
+        cacheMisses = meterRegistry.counter("jwt.claims.cache.requests", "result", "miss");
+        Gauge.builder("jwt.claims.cache.size", this, JwtService::claimsCacheSize).register(meterRegistry);
     }
 
     public String generateToken(String username, Long userId) {
@@ -32,7 +70,7 @@ public class JwtService {
                 .claim("userId", userId)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -54,12 +92,37 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Claims verificadas do token. A assinatura só é verificada na primeira vez que o token
+     * aparece; as chamadas seguintes usam o cache até o exp do token.
+     * Lança JwtException se o token for inválido ou estiver expirado.
+     */
+    public Claims extractAllClaims(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+
+        synchronized (claimsCache) {
+            CachedClaims cached = claimsCache.get(key);
+            if (cached != null && cached.expiresAt > now) {
+                cacheHits.increment();
+                return cached.claims;
+            }
+            if (cached != null) {
+                claimsCache.remove(key);
+            }
+        }
+
+        cacheMisses.increment();
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        // Tokens sem exp não entram no cache, para não ficarem válidos indefinidamente em memória
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            synchronized (claimsCache) {
+                claimsCache.put(key, new CachedClaims(claims, expiration.getTime()));
+            }
+        }
+        return claims;
     }
 
     public Boolean isTokenExpired(String token) {
@@ -67,8 +130,41 @@ public class JwtService {
     }
 
     public Boolean validateToken(String token, String username) {
-        final String tokenUsername = extractUsername(token);
-        return (tokenUsername.equals(username) && !isTokenExpired(token));
+        return isTokenValid(extractAllClaims(token), username);
     }
-}
 
+    /**
+     * Valida claims já extraídas, sem novo parse do token.
+     */
+    public boolean isTokenValid(Claims claims, String username) {
+        Date expiration = claims.getExpiration();
+        return claims.getSubject() != null
+                && claims.getSubject().equals(username)
+                && (expiration == null || !expiration.before(new Date()));
+    }
+
+    public int claimsCacheSize() {
+        synchronized (claimsCache) {
+            return claimsCache.size();
+        }
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static class CachedClaims {
+        private final Claims claims;
+        private final long expiresAt;
+
+        CachedClaims(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
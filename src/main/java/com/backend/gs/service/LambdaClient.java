@@ -0,0 +1,451 @@
+package com.backend.gs.service;
+
+import com.backend.gs.utils.CircuitBreaker;
+import com.backend.gs.utils.RetryBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chamadas HTTP às Lambdas com proteção por endpoint:
+ * - timeout curto por endpoint (lambda.<endpoint>.timeout-ms);
+ * - bulkhead: no máximo lambda.<endpoint>.max-concurrent chamadas simultâneas; a primeira
+ *   tentativa espera até lambda.<endpoint>.max-wait-ms por uma vaga (0 = sem fila);
+ * - circuit breaker: abre quando a taxa de falhas (erro de rede, timeout ou 5xx) passa do limite;
+ * - retries com backoff exponencial e jitter, limitados por um orçamento global (RetryBudget).
+ * Chamadas rejeitadas pelo bulkhead ou pelo circuito aberto falham na hora com
+ * LambdaUnavailableException (sem retry), e cada chamador decide o seu fallback.
+ */
+@Component
+public class LambdaClient {
+
+    public enum Endpoint {
+        JOB_START("job-start", false),
+        PRESIGN("presign", true),
+        UPLOAD_URLS("upload-urls", false),
+        CHECK_REPORT("check-report", true);
+
+        private final String tag;
+        private final boolean idempotent;
+
+        Endpoint(String tag, boolean idempotent) {
+            this.tag = tag;
+            this.idempotent = idempotent;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public boolean isIdempotent() {
+            return idempotent;
+        }
+    }
+
+    /**
+     * Lambda indisponível: circuito aberto ou bulkhead cheio. Nenhuma requisição foi enviada.
+     */
+    public static class LambdaUnavailableException extends RuntimeException {
+        public LambdaUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    private final HttpClient httpClient;
+    private final MeterRegistry meterRegistry;
+    private final Map<Endpoint, Guard> guards = new EnumMap<>(Endpoint.class);
+
+    @Value("${lambda.url:https://lv6bwqn7dfkqulrqquhlz3fhdy0zuzbx.lambda-url.us-east-1.on.aws/}")
+    private String jobStartUrl;
+
+    @Value("${lambda.presigned.url:https://6t7s4lvjy7aohaxruak6a3arfy0byiau.lambda-url.us-east-1.on.aws/}")
+    private String presignUrl;
+
+    @Value("${lambda.upload.urls:https://mcy4uuho2gkb3ey3f5fz3cko2a0kmcgl.lambda-url.us-east-1.on.aws/}")
+    private String uploadUrlsUrl;
+
+    @Value("${lambda.check.report.url:}")
+    private String checkReportUrl;
+
+    @Value("${lambda.job-start.timeout-ms:10000}")
+    private long jobStartTimeoutMs;
+
+    @Value("${lambda.presign.timeout-ms:3000}")
+    private long presignTimeoutMs;
+
+    @Value("${lambda.upload-urls.timeout-ms:5000}")
+    private long uploadUrlsTimeoutMs;
+
+    @Value("${lambda.check-report.timeout-ms:3000}")
+    private long checkReportTimeoutMs;
+
+    @Value("${lambda.job-start.max-concurrent:10}")
+    private int jobStartMaxConcurrent;
+
+    @Value("${lambda.presign.max-concurrent:16}")
+    private int presignMaxConcurrent;
+
+    @Value("${lambda.upload-urls.max-concurrent:10}")
+    private int uploadUrlsMaxConcurrent;
+
+    @Value("${lambda.check-report.max-concurrent:4}")
+    private int checkReportMaxConcurrent;
+
+    @Value("${lambda.job-start.max-wait-ms:0}")
+    private long jobStartMaxWaitMs;
+
+    // Presign: os itens do fan-out de status esperam um pouco por vaga em vez de falhar na hora
+    @Value("${lambda.presign.max-wait-ms:500}")
+    private long presignMaxWaitMs;
+
+    @Value("${lambda.upload-urls.max-wait-ms:0}")
+    private long uploadUrlsMaxWaitMs;
+
+    @Value("${lambda.check-report.max-wait-ms:0}")
+    private long checkReportMaxWaitMs;
+
+    @Value("${lambda.breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${lambda.breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+
+    @Value("${lambda.breaker.failure-rate-threshold:50}")
+    private int breakerFailureRateThreshold;
+
+    @Value("${lambda.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    @Value("${lambda.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${lambda.retry.base-delay-ms:100}")
+    private long retryBaseDelayMs;
+
+    @Value("${lambda.retry.max-delay-ms:1000}")
+    private long retryMaxDelayMs;
+
+    @Value("${lambda.retry.budget.ratio:0.1}")
+    private double retryBudgetRatio;
+
+    @Value("${lambda.retry.budget.max-tokens:10}")
+    private double retryBudgetMaxTokens;
+
+    // Compartilhado entre os endpoints: limita o total de retries a uma fração das chamadas
+    private RetryBudget retryBudget;
+
+    public LambdaClient(HttpClient lambdaHttpClient, MeterRegistry meterRegistry) {
+        this.httpClient = lambdaHttpClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        retryBudget = new RetryBudget(retryBudgetRatio, retryBudgetMaxTokens);
+        Gauge.builder("lambda.retry.budget.tokens", retryBudget, RetryBudget::getTokens).register(meterRegistry);
+
+        guards.put(Endpoint.JOB_START, new Guard(Endpoint.JOB_START, jobStartUrl, jobStartTimeoutMs,
+                jobStartMaxConcurrent, jobStartMaxWaitMs));
+        guards.put(Endpoint.PRESIGN, new Guard(Endpoint.PRESIGN, presignUrl, presignTimeoutMs,
+                presignMaxConcurrent, presignMaxWaitMs));
+        guards.put(Endpoint.UPLOAD_URLS, new Guard(Endpoint.UPLOAD_URLS, uploadUrlsUrl, uploadUrlsTimeoutMs,
+                uploadUrlsMaxConcurrent, uploadUrlsMaxWaitMs));
+        guards.put(Endpoint.CHECK_REPORT, new Guard(Endpoint.CHECK_REPORT, checkReportUrl, checkReportTimeoutMs,
+                checkReportMaxConcurrent, checkReportMaxWaitMs));
+    }
+
+    public boolean isConfigured(Endpoint endpoint) {
+        String url = guards.get(endpoint).url;
+        return url != null && !url.isEmpty();
+    }
+
+    /**
+     * Estado do circuito do endpoint (para fallbacks que preferem nem tentar a chamada).
+     */
+    public CircuitBreaker.State getState(Endpoint endpoint) {
+        return guards.get(endpoint).breaker.getState();
+    }
+
+    /**
+     * POST síncrono com corpo JSON, com retries conforme a política do endpoint (ver shouldRetry).
+     * Lança LambdaUnavailableException sem enviar nada quando o endpoint está protegido;
+     * esgotados os retries, devolve a última resposta ou propaga o último erro.
+     */
+    public HttpResponse<String> post(Endpoint endpoint, String jsonBody) throws Exception {
+        return post(endpoint, jsonBody, null);
+    }
+
+    /**
+     * Como post(endpoint, jsonBody), enviando idempotencyKey no header Idempotency-Key para que a
+     * Lambda descarte reenvios da mesma operação (retries e reentregas do outbox).
+     */
+    public HttpResponse<String> post(Endpoint endpoint, String jsonBody, String idempotencyKey) throws Exception {
+        Guard guard = guards.get(endpoint);
+        retryBudget.deposit();
+
+        for (int attempt = 1; ; attempt++) {
+            HttpResponse<String> response = null;
+            Exception error = null;
+            try {
+                response = attempt(guard, jsonBody, idempotencyKey);
+            } catch (LambdaUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                error = e;
+            }
+
+            if (attempt >= maxAttempts || !shouldRetry(endpoint, response, error) || !reserveRetry(guard)) {
+                if (error != null) {
+                    throw error;
+                }
+                return response;
+            }
+
+            Thread.sleep(backoffMillis(attempt));
+        }
+    }
+
+    /**
+     * POST assíncrono, com a mesma política de retry do post(); as esperas entre tentativas
+     * não ocupam thread. A rejeição pelo bulkhead/circuito vem como future já falho. A espera
+     * por vaga no bulkhead (max-wait-ms) acontece só na primeira tentativa, na thread do chamador;
+     * os retries rodam no delayedExecutor e não esperam. Cancelar o future devolvido cancela
+     * a requisição HTTP em andamento e os retries pendentes.
+     */
+    public CompletableFuture<HttpResponse<String>> postAsync(Endpoint endpoint, String jsonBody) {
+        return postAsync(endpoint, jsonBody, null);
+    }
+
+    public CompletableFuture<HttpResponse<String>> postAsync(Endpoint endpoint, String jsonBody, String idempotencyKey) {
+        return postAsync(endpoint, jsonBody, idempotencyKey, Long.MAX_VALUE);
+    }
+
+    /**
+     * Como postAsync, mas a espera por vaga no bulkhead fica limitada também a maxWaitMs
+     * (o que resta do prazo do chamador); 0 = não espera.
+     */
+    public CompletableFuture<HttpResponse<String>> postAsync(Endpoint endpoint, String jsonBody, String idempotencyKey,
+                                                             long maxWaitMs) {
+        Guard guard = guards.get(endpoint);
+        retryBudget.deposit();
+        CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+        attemptAsync(endpoint, guard, jsonBody, idempotencyKey, 1, Math.max(0, maxWaitMs), result);
+        return result;
+    }
+
+    private void attemptAsync(Endpoint endpoint, Guard guard, String jsonBody, String idempotencyKey, int attempt,
+                              long maxWaitMs, CompletableFuture<HttpResponse<String>> result) {
+        if (result.isDone()) {
+            return; // chamador desistiu (prazo esgotado)
+        }
+
+        CompletableFuture<HttpResponse<String>> call;
+        try {
+            guard.acquire(attempt == 1 ? maxWaitMs : 0);
+            call = httpClient.sendAsync(guard.request(jsonBody, idempotencyKey), HttpResponse.BodyHandlers.ofString());
+        } catch (LambdaUnavailableException e) {
+            result.completeExceptionally(e);
+            return;
+        } catch (RuntimeException e) {
+            guard.release(true);
+            result.completeExceptionally(e);
+            return;
+        }
+
+        // Cancelar o result (prazo esgotado no chamador) aborta a requisição em andamento
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+
+        call.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                guard.releaseCancelled();
+                return;
+            }
+            guard.release(error != null || response.statusCode() >= 500);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+            if (attempt < maxAttempts && shouldRetry(endpoint, response, cause) && reserveRetry(guard)) {
+                CompletableFuture.runAsync(() -> attemptAsync(endpoint, guard, jsonBody, idempotencyKey, attempt + 1, 0, result),
+                        CompletableFuture.delayedExecutor(backoffMillis(attempt), TimeUnit.MILLISECONDS));
+            } else if (cause != null) {
+                result.completeExceptionally(cause);
+            } else {
+                result.complete(response);
+            }
+        });
+    }
+
+    private HttpResponse<String> attempt(Guard guard, String jsonBody, String idempotencyKey) throws Exception {
+        guard.acquire(Long.MAX_VALUE);
+
+        boolean failed = true;
+        try {
+            HttpResponse<String> response = httpClient.send(guard.request(jsonBody, idempotencyKey), HttpResponse.BodyHandlers.ofString());
+            failed = response.statusCode() >= 500;
+            return response;
+        } finally {
+            guard.release(failed);
+        }
+    }
+
+    /**
+     * Endpoints idempotentes (presign, check-report) repetem em erro de rede, timeout, 429 e 5xx.
+     * Os demais (job-start, upload-urls) criam sessões na Lambda e só repetem quando a conexão
+     * nem chegou a ser aberta, pois aí a requisição com certeza não foi processada.
+     */
+    private boolean shouldRetry(Endpoint endpoint, HttpResponse<String> response, Throwable error) {
+        if (error instanceof LambdaUnavailableException) {
+            return false;
+        }
+        if (!endpoint.isIdempotent()) {
+            return error instanceof ConnectException || error instanceof HttpConnectTimeoutException;
+        }
+        if (error != null) {
+            return error instanceof IOException;
+        }
+        return response.statusCode() == 429 || response.statusCode() >= 500;
+    }
+
+    private boolean reserveRetry(Guard guard) {
+        if (retryBudget.tryWithdraw()) {
+            guard.retries.increment();
+            return true;
+        }
+        guard.retriesBudgetExhausted.increment();
+        return false;
+    }
+
+    /**
+     * Backoff exponencial com jitter total: espera aleatória entre 0 e min(max, base * 2^(tentativa-1)).
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Proteções de um endpoint: bulkhead (semáforo com espera curta opcional) + circuit breaker + métricas.
+     */
+    private class Guard {
+
+        private final String url;
+        private final long timeoutMs;
+        private final Semaphore bulkhead;
+        private final long maxWaitMs;
+        private final CircuitBreaker breaker;
+        private final Counter successes;
+        private final Counter failures;
+        private final Counter cancelled;
+        private final Counter rejectedOpen;
+        private final Counter rejectedBulkhead;
+        private final Counter retries;
+        private final Counter retriesBudgetExhausted;
+
+        Guard(Endpoint endpoint, String url, long timeoutMs, int maxConcurrent, long maxWaitMs) {
+            this.url = url;
+            this.timeoutMs = timeoutMs;
+            this.bulkhead = new Semaphore(Math.max(1, maxConcurrent));
+            this.maxWaitMs = Math.max(0, maxWaitMs);
+            this.breaker = new CircuitBreaker("lambda-" + endpoint.getTag(), breakerWindowSize,
+                    breakerMinimumCalls, breakerFailureRateThreshold, breakerOpenMs);
+
+            String tag = endpoint.getTag();
+            this.successes = meterRegistry.counter("lambda.calls", "endpoint", tag, "result", "success");
+            this.failures = meterRegistry.counter("lambda.calls", "endpoint", tag, "result", "failure");
+            this.cancelled = meterRegistry.counter("lambda.calls", "endpoint", tag, "result", "cancelled");
+            this.rejectedOpen = meterRegistry.counter("lambda.calls", "endpoint", tag, "result", "rejected_open");
+            this.rejectedBulkhead = meterRegistry.counter("lambda.calls", "endpoint", tag, "result", "rejected_bulkhead");
+            this.retries = meterRegistry.counter("lambda.retries", "endpoint", tag, "result", "attempted");
+            this.retriesBudgetExhausted = meterRegistry.counter("lambda.retries", "endpoint", tag, "result", "budget_exhausted");
+            // 0 = CLOSED, 1 = HALF_OPEN, 2 = OPEN
+            Gauge.builder("lambda.circuit.state", breaker, b -> b.getState().ordinal())
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Gauge.builder("lambda.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Reserva uma vaga no bulkhead e a permissão do circuito. Espera por uma vaga até
+         * min(max-wait-ms do endpoint, waitLimitMs) antes de rejeitar (0 = só tenta).
+         */
+        void acquire(long waitLimitMs) {
+            if (!tryAcquireBulkhead(Math.min(maxWaitMs, waitLimitMs))) {
+                rejectedBulkhead.increment();
+                throw new LambdaUnavailableException("Lambda " + breaker.getName() + ": limite de chamadas simultâneas atingido");
+            }
+            if (!breaker.tryAcquirePermission()) {
+                bulkhead.release();
+                rejectedOpen.increment();
+                throw new LambdaUnavailableException("Lambda " + breaker.getName() + ": circuito aberto");
+            }
+        }
+
+        private boolean tryAcquireBulkhead(long waitMs) {
+            if (waitMs <= 0) {
+                return bulkhead.tryAcquire();
+            }
+            try {
+                return bulkhead.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        void release(boolean failed) {
+            if (failed) {
+                failures.increment();
+                breaker.onFailure();
+            } else {
+                successes.increment();
+                breaker.onSuccess();
+            }
+            bulkhead.release();
+        }
+
+        /**
+         * Chamada cancelada pelo chamador (prazo esgotado): libera a vaga sem registrar resultado no circuito.
+         */
+        void releaseCancelled() {
+            cancelled.increment();
+            breaker.onIgnored();
+            bulkhead.release();
+        }
+
+        HttpRequest request(String jsonBody, String idempotencyKey) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(url))
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody));
+            if (idempotencyKey != null) {
+                builder.header("Idempotency-Key", idempotencyKey);
+            }
+            return builder.build();
+        }
+    }
+}
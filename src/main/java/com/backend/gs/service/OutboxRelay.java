@@ -0,0 +1,177 @@
+package com.backend.gs.service;
+
+import com.backend.gs.dao.OutboxDao;
+import com.backend.gs.model.OutboxEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Entrega em segundo plano os envios pendentes da LAMBDA_OUTBOX.
+ * A cada ciclo reserva um lote de envios vencidos (com lease, ver OutboxDao.claimDue), entrega
+ * em paralelo e reagenda as falhas com backoff exponencial com jitter. Após outbox.max-attempts
+ * tentativas o envio é marcado como FAILED e o job vai para DISPATCH_FAILED.
+ * Com o circuito do job-start aberto o ciclo é pulado, e recusas locais da Lambda
+ * (LambdaUnavailableException) não contam como tentativa. Várias instâncias podem rodar ao mesmo tempo.
+ */
+@Component
+public class OutboxRelay {
+
+    private final OutboxDao outboxDao;
+    private final JobReportService jobReportService;
+    private final ExecutorService executor;
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter deferred;
+    private final int batchSize;
+
+    @Value("${outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.initial-backoff-ms:5000}")
+    private long initialBackoffMs;
+
+    @Value("${outbox.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    @Value("${outbox.retention-hours:72}")
+    private long retentionHours;
+
+    public OutboxRelay(OutboxDao outboxDao, JobReportService jobReportService, MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.max-concurrency:4}") int maxConcurrency,
+                       @Value("${outbox.relay.batch-size:20}") int batchSize) {
+        this.outboxDao = outboxDao;
+        this.jobReportService = jobReportService;
+        this.batchSize = batchSize;
+        // Fila do tamanho do lote (invokeAll de um lote por ciclo); se lotar, a thread do agendador executa
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, batchSize)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-relay-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "outbox-relay");
+        this.delivered = meterRegistry.counter("outbox.deliveries", "result", "delivered");
+        this.retried = meterRegistry.counter("outbox.deliveries", "result", "retry");
+        this.failed = meterRegistry.counter("outbox.deliveries", "result", "failed");
+        this.deferred = meterRegistry.counter("outbox.deliveries", "result", "deferred");
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:5000}",
+               initialDelayString = "${outbox.relay.interval-ms:5000}")
+    public void relay() {
+        if (!jobReportService.isJobStartAvailable()) {
+            // Circuito aberto: reservar agora só gastaria tentativas (como no ReportReadinessPoller)
+            return;
+        }
+
+        List<OutboxEntry> batch;
+        try {
+            batch = outboxDao.claimDue(batchSize, leaseMs);
+        } catch (Exception e) {
+            System.err.println("⚠️ Outbox relay: erro ao reservar envios: " + e.getMessage());
+            return;
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Callable<Void>> deliveries = new ArrayList<>(batch.size());
+        for (OutboxEntry entry : batch) {
+            deliveries.add(() -> {
+                deliver(entry);
+                return null;
+            });
+        }
+
+        try {
+            executor.invokeAll(deliveries);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(OutboxEntry entry) {
+        try {
+            jobReportService.deliverOutboxEntry(entry);
+            outboxDao.markDelivered(entry.getIdOutbox());
+            delivered.increment();
+            System.out.println("✅ Outbox: job " + entry.getIdJobReport() + " entregue à Lambda (tentativa " + entry.getAttempts() + ")");
+        } catch (Exception e) {
+            handleFailure(entry, e);
+        }
+    }
+
+    private void handleFailure(OutboxEntry entry, Exception error) {
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        try {
+            if (error instanceof LambdaClient.LambdaUnavailableException) {
+                // A chamada nem saiu: reagenda sem consumir a tentativa
+                outboxDao.deferWithoutAttempt(entry.getIdOutbox(), initialBackoffMs, message);
+                deferred.increment();
+                System.err.println("⏸️ Outbox: job " + entry.getIdJobReport() + " adiado (Lambda indisponível): " + message);
+            } else if (entry.getAttempts() >= maxAttempts) {
+                outboxDao.markFailed(entry.getIdOutbox(), message);
+                failed.increment();
+                System.err.println("❌ Outbox: job " + entry.getIdJobReport() + " desistido após " + entry.getAttempts() + " tentativas: " + message);
+                jobReportService.markDispatchFailed(entry.getIdJobReport());
+            } else {
+                outboxDao.reschedule(entry.getIdOutbox(), backoffMillis(entry.getAttempts()), message);
+                retried.increment();
+                System.err.println("⚠️ Outbox: job " + entry.getIdJobReport() + " falhou (tentativa " + entry.getAttempts() + "): " + message);
+            }
+        } catch (Exception e) {
+            // O lease expira e o envio volta a ser reservado
+            System.err.println("⚠️ Outbox: erro ao reagendar envio " + entry.getIdOutbox() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Backoff exponencial com jitter: metade fixa e metade aleatória de min(max, inicial * 2^(tentativa-1)).
+     */
+    private long backoffMillis(int attempts) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge.interval-ms:3600000}",
+               initialDelayString = "${outbox.purge.interval-ms:3600000}")
+    public void purge() {
+        try {
+            int removed = outboxDao.purgeDelivered(retentionHours);
+            if (removed > 0) {
+                System.out.println("🧹 Outbox: " + removed + " envio(s) entregue(s) removido(s)");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Outbox: erro ao limpar envios entregues: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
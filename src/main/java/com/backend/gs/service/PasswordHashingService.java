@@ -0,0 +1,77 @@
+package com.backend.gs.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executa o BCrypt (hash no cadastro, verificação no login) num pool próprio e limitado,
+ * fora das threads do Tomcat. Quando o pool e a fila (security.bcrypt.queue-capacity) estão
+ * cheios, a tarefa é rejeitada na hora: o future falha com RejectedExecutionException e o
+ * controller responde 503, em vez de uma rajada de logins travar o resto da API.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService executor;
+    private final Counter rejectedEncode;
+    private final Counter rejectedMatches;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${security.bcrypt.threads:2}") int threads,
+                                  @Value("${security.bcrypt.queue-capacity:50}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // executor.active / executor.queued / executor.completed etc. com name=bcrypt
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "bcrypt");
+        this.rejectedEncode = meterRegistry.counter("auth.bcrypt.rejected", "operation", "encode");
+        this.rejectedMatches = meterRegistry.counter("auth.bcrypt.rejected", "operation", "matches");
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), executor);
+        } catch (RejectedExecutionException e) {
+            rejectedEncode.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> passwordEncoder.matches(rawPassword, encodedPassword), executor);
+        } catch (RejectedExecutionException e) {
+            rejectedMatches.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,165 @@
+package com.backend.gs.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache em memória de presigned URLs de download, indexado pelo S3 path.
+ * As entradas expiram antes da assinatura: o TTL é derivado de s3.presign.expiration-seconds menos
+ * a janela do ETag de status (status.etag.window-seconds, durante a qual o cliente ainda revalida
+ * a URL com 304) e uma folga (presign.cache.safety-margin-seconds). Cada entrada também respeita a
+ * validade real da URL (X-Amz-Date + X-Amz-Expires) e a expiração das credenciais que a assinaram.
+ * O tamanho é limitado, descartando a entrada usada há mais tempo (LRU).
+ */
+@Component
+public class PresignedUrlCache {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final long ttlMillis;
+    // Tempo que a URL ainda precisa valer depois de sair do cache (janela do ETag + folga)
+    private final long guardMillis;
+    private final int maxSize;
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    /**
+     * presign.cache.ttl-seconds é opcional (-1 = derivar; 0 = cache desligado). Se for configurado
+     * acima do máximo derivado, a aplicação não sobe: o cache serviria URLs já expiradas.
+     */
+    public PresignedUrlCache(@Value("${presign.cache.ttl-seconds:-1}") long ttlSeconds,
+                             @Value("${s3.presign.expiration-seconds:3600}") long expirationSeconds,
+                             @Value("${status.etag.window-seconds:300}") long etagWindowSeconds,
+                             @Value("${presign.cache.safety-margin-seconds:300}") long safetyMarginSeconds,
+                             @Value("${presign.cache.max-size:10000}") int maxSize,
+                             MeterRegistry meterRegistry) {
+        long guardSeconds = Math.max(0, etagWindowSeconds) + Math.max(0, safetyMarginSeconds);
+        long maxTtlSeconds = expirationSeconds - guardSeconds;
+        if (maxTtlSeconds <= 0) {
+            throw new IllegalStateException("s3.presign.expiration-seconds (" + expirationSeconds
+                    + ") deve ser maior que status.etag.window-seconds + presign.cache.safety-margin-seconds (" + guardSeconds + ")");
+        }
+        if (ttlSeconds > maxTtlSeconds) {
+            throw new IllegalStateException("presign.cache.ttl-seconds (" + ttlSeconds + ") deve ser no máximo "
+                    + maxTtlSeconds + " (validade da assinatura - janela do ETag - folga)");
+        }
+        this.ttlMillis = (ttlSeconds < 0 ? maxTtlSeconds : ttlSeconds) * 1000;
+        this.guardMillis = guardSeconds * 1000;
+        this.maxSize = maxSize;
+        this.hits = meterRegistry.counter("presign.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("presign.cache.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("presign.cache.evictions");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PresignedUrlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("presign.cache.size", this, PresignedUrlCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Retorna a URL em cache ou null se não existir / já tiver expirado.
+     */
+    public String get(String s3Path) {
+        synchronized (entries) {
+            Entry entry = entries.get(s3Path);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return entry.url;
+            }
+            if (entry != null) {
+                entries.remove(s3Path);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Guarda a URL até o menor entre: agora + TTL, a expiração da assinatura e a das credenciais
+     * (credentialsExpiration, null se desconhecida), as duas últimas menos a janela do ETag e a folga.
+     */
+    public void put(String s3Path, String url, Instant credentialsExpiration) {
+        if (ttlMillis <= 0 || url == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+
+        Instant signatureExpiration = signatureExpiration(url);
+        if (signatureExpiration != null) {
+            expiresAt = Math.min(expiresAt, signatureExpiration.toEpochMilli() - guardMillis);
+        }
+        if (credentialsExpiration != null) {
+            expiresAt = Math.min(expiresAt, credentialsExpiration.toEpochMilli() - guardMillis);
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.put(s3Path, new Entry(url, expiresAt));
+        }
+    }
+
+    /**
+     * Expiração de uma URL SigV4 (X-Amz-Date + X-Amz-Expires), ou null se a URL não trouxer esses parâmetros.
+     */
+    static Instant signatureExpiration(String url) {
+        int queryStart = url.indexOf('?');
+        if (queryStart < 0) {
+            return null;
+        }
+        String amzDate = null;
+        String amzExpires = null;
+        for (String param : url.substring(queryStart + 1).split("&")) {
+            if (param.startsWith("X-Amz-Date=")) {
+                amzDate = param.substring("X-Amz-Date=".length());
+            } else if (param.startsWith("X-Amz-Expires=")) {
+                amzExpires = param.substring("X-Amz-Expires=".length());
+            }
+        }
+        if (amzDate == null || amzExpires == null) {
+            return null;
+        }
+        try {
+            Instant signedAt = LocalDateTime.parse(amzDate, AMZ_DATE).toInstant(ZoneOffset.UTC);
+            return signedAt.plusSeconds(Long.parseLong(amzExpires));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Entry {
+        private final String url;
+        private final long expiresAt;
+
+        private Entry(String url, long expiresAt) {
+            this.url = url;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.backend.gs.service;
+
+import com.backend.gs.dao.JobReportDao;
+import com.backend.gs.model.JobReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifica em segundo plano se o relatório dos jobs em AUDIOS_READY já foi gerado,
+ * tirando a chamada à Lambda CheckReportStatus do caminho do GET /status.
+ * Cada job é verificado com backoff exponencial, persistido em JOB_REPORT (NEXT_CHECK_AT,
+ * CHECK_ATTEMPTS) para sobreviver a reinícios e valer entre instâncias, com no máximo
+ * report.poller.max-concurrency chamadas simultâneas. Só os jobs vencidos são buscados,
+ * os mais atrasados primeiro, então jobs em backoff não tomam o lugar dos demais.
+ * Quando o relatório aparece, a URL é salva e o job vai para REPORT_READY.
+ */
+@Component
+public class ReportReadinessPoller {
+
+    private final JobReportDao jobReportDao;
+    private final JobReportService jobReportService;
+    private final ExecutorService executor;
+    private final int batchSize;
+
+    @Value("${report.poller.initial-backoff-ms:10000}")
+    private long initialBackoffMs;
+
+    @Value("${report.poller.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    public ReportReadinessPoller(JobReportDao jobReportDao, JobReportService jobReportService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${report.poller.max-concurrency:4}") int maxConcurrency,
+                                 @Value("${report.poller.batch-size:50}") int batchSize) {
+        this.jobReportDao = jobReportDao;
+        this.jobReportService = jobReportService;
+        this.batchSize = batchSize;
+        // Fila do tamanho do lote (invokeAll de um lote por ciclo); se lotar, a thread do agendador executa
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, batchSize)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-poller-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "report-poller");
+    }
+
+    @Scheduled(fixedDelayString = "${report.poller.interval-ms:15000}",
+               initialDelayString = "${report.poller.interval-ms:15000}")
+    public void poll() {
+        // Lambda não configurada ou circuito aberto: nada a fazer neste ciclo
+        if (!jobReportService.isReportCheckAvailable()) {
+            return;
+        }
+
+        List<JobReport> pending;
+        try {
+            pending = jobReportDao.findAwaitingReport(batchSize);
+        } catch (Exception e) {
+            System.err.println("⚠️ Poller de relatórios: erro ao buscar jobs: " + e.getMessage());
+            return;
+        }
+
+        List<Callable<Void>> checks = new ArrayList<>(pending.size());
+        for (JobReport job : pending) {
+            checks.add(() -> {
+                check(job);
+                return null;
+            });
+        }
+
+        if (checks.isEmpty()) {
+            return;
+        }
+
+        try {
+            executor.invokeAll(checks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void check(JobReport job) {
+        long jobReportId = job.getIdJobReport();
+        try {
+            String reportUrl = jobReportService.checkOrGenerateReport(job.getSessionId());
+            if (reportUrl != null && !reportUrl.isEmpty()) {
+                jobReportService.updateReportUrl(jobReportId, reportUrl);
+                System.out.println("✅ Job report " + jobReportId + ": AUDIOS_READY -> REPORT_READY (poller)");
+                return;
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Poller de relatórios: erro no job " + jobReportId + ": " + e.getMessage());
+        }
+        scheduleNext(jobReportId);
+    }
+
+    private void scheduleNext(long jobReportId) {
+        try {
+            jobReportDao.scheduleNextReportCheck(jobReportId, initialBackoffMs, maxBackoffMs);
+        } catch (Exception e) {
+            // Sem reagendamento o job continua vencido e é verificado no próximo ciclo
+            System.err.println("⚠️ Poller de relatórios: erro ao reagendar job " + jobReportId + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,42 +1,135 @@
 package com.backend.gs.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.auth.signer.AwsS3V4Signer;
+import software.amazon.awssdk.auth.signer.AwsSignerExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.signer.Presigner;
+import software.amazon.awssdk.core.signer.Signer;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 
+/**
+ * Assinatura local (SigV4) de URLs de download do S3.
+ * O presigner é criado uma única vez e reaproveitado: as credenciais ficam em cache no provider
+ * e o signer do SDK reaproveita a chave de assinatura derivada do dia, então cada URL é só
+ * um cálculo HMAC em memória, sem chamada de rede.
+ */
 @Service
 public class S3Service {
 
     @Value("${aws.region:us-east-1}")
     private String awsRegion;
 
-    private S3Presigner createPresigner() {
-        return S3Presigner.builder()
+    @Value("${s3.bucket.name}")
+    private String defaultBucket;
+
+    // Opcional: credenciais fixas (sem isso usa a cadeia padrão da AWS: env, profile, role...)
+    @Value("${aws.access-key-id:}")
+    private String accessKeyId;
+
+    @Value("${aws.secret-access-key:}")
+    private String secretAccessKey;
+
+    @Value("${s3.presign.expiration-seconds:3600}")
+    private int defaultExpirationSeconds;
+
+    private static final AwsS3V4Signer SIGNER = AwsS3V4Signer.create();
+
+    // Relógio da assinatura (X-Amz-Date e expiração); o presigner do SDK sozinho sempre usa o do sistema
+    private final Clock clock;
+
+    private AwsCredentialsProvider credentialsProvider;
+    private S3Presigner presigner;
+
+    public S3Service() {
+        this(Clock.systemUTC());
+    }
+
+    S3Service(Clock clock) {
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void init() {
+        credentialsProvider = createCredentialsProvider();
+        presigner = S3Presigner.builder()
                 .region(Region.of(awsRegion))
-                .credentialsProvider(DefaultCredentialsProvider.create())
+                .credentialsProvider(credentialsProvider)
                 .build();
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (presigner != null) {
+            presigner.close();
+        }
+    }
+
+    private AwsCredentialsProvider createCredentialsProvider() {
+        if (!accessKeyId.isEmpty() && !secretAccessKey.isEmpty()) {
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretAccessKey));
+        }
+        return DefaultCredentialsProvider.create();
+    }
+
+    /**
+     * Expiração das credenciais usadas na assinatura (credenciais temporárias de role/SSO), ou null
+     * se forem fixas ou a expiração não for conhecida. Uma URL assinada para de valer quando elas expiram.
+     */
+    public Instant credentialsExpiration() {
+        try {
+            AwsCredentials credentials = credentialsProvider.resolveCredentials();
+            if (credentials instanceof AwsSessionCredentials session) {
+                return session.expirationTime().orElse(null);
+            }
+        } catch (RuntimeException e) {
+            // Sem credenciais a assinatura também falha; o erro aparece lá
+        }
+        return null;
+    }
+
     public String generatePresignedUrl(String bucket, String key, int expirationSeconds) {
-        try (S3Presigner presigner = createPresigner()) {
-            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                    .signatureDuration(Duration.ofSeconds(expirationSeconds))
-                    .getObjectRequest(request -> request
-                            .bucket(bucket)
-                            .key(key))
-                    .build();
+        Duration duration = Duration.ofSeconds(expirationSeconds);
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(duration)
+                .getObjectRequest(request -> request
+                        .bucket(bucket)
+                        .key(key)
+                        .overrideConfiguration(o -> o.signer(new ClockSigner(clock, duration))))
+                .build();
 
-            PresignedGetObjectRequest presignedRequest = presigner.presignGetObject(presignRequest);
-            return presignedRequest.url().toString();
+        PresignedGetObjectRequest presignedRequest = presigner.presignGetObject(presignRequest);
+        return presignedRequest.url().toString();
+    }
+
+    /**
+     * Gera a URL de download para um path salvo em AUDIO_FILES.
+     * Aceita "s3://bucket/key" ou apenas a key (usa o bucket configurado).
+     */
+    public String generatePresignedDownloadUrl(String s3Path) {
+        if (s3Path.startsWith("s3://")) {
+            return generatePresignedUrl(extractBucket(s3Path), extractKey(s3Path), defaultExpirationSeconds);
         }
+        String key = s3Path.startsWith("/") ? s3Path.substring(1) : s3Path;
+        return generatePresignedUrl(defaultBucket, key, defaultExpirationSeconds);
     }
 
     public String extractKey(String s3Path) {
@@ -59,5 +152,35 @@ public class S3Service {
         return path.substring(0, firstSlash);
     }
 
-}
+    /**
+     * Signer SigV4 do S3 com o horário da assinatura e a expiração tirados do clock informado.
+     */
+    private static final class ClockSigner implements Signer, Presigner {
 
+        private final Clock clock;
+        private final Duration duration;
+
+        private ClockSigner(Clock clock, Duration duration) {
+            this.clock = clock;
+            this.duration = duration;
+        }
+
+        @Override
+        public SdkHttpFullRequest presign(SdkHttpFullRequest request, ExecutionAttributes attributes) {
+            return SIGNER.presign(request, withClock(attributes));
+        }
+
+        @Override
+        public SdkHttpFullRequest sign(SdkHttpFullRequest request, ExecutionAttributes attributes) {
+            return SIGNER.sign(request, withClock(attributes));
+        }
+
+        private ExecutionAttributes withClock(ExecutionAttributes attributes) {
+            // Um único instante para X-Amz-Date e expiração, senão X-Amz-Expires pode sair 1s menor
+            Instant signedAt = clock.instant();
+            return attributes.copy()
+                    .putAttribute(AwsSignerExecutionAttribute.SIGNING_CLOCK, Clock.fixed(signedAt, ZoneOffset.UTC))
+                    .putAttribute(AwsSignerExecutionAttribute.PRESIGNER_EXPIRATION, signedAt.plus(duration));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.backend.gs.utils;
+
+/**
+ * Circuit breaker por contagem: guarda o resultado das últimas windowSize chamadas e abre
+ * quando, com pelo menos minimumCalls registradas, a taxa de falhas passa de
+ * failureRateThreshold (%). Aberto, rejeita tudo por openDurationMs; depois deixa passar
+ * uma única chamada de teste (HALF_OPEN), que fecha o circuito se der certo ou o reabre se falhar.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDurationMs;
+
+    // Janela circular com os resultados mais recentes (true = falha)
+    private final boolean[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold, long openDurationMs) {
+        this.name = name;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMs = openDurationMs;
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    /**
+     * Retorna true se a chamada pode seguir. Quem recebe true deve chamar
+     * onSuccess(), onFailure() ou onIgnored() ao terminar.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openDurationMs) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                trialInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.CLOSED);
+            return;
+        }
+        record(false);
+        openIfThresholdReached();
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        record(true);
+        openIfThresholdReached();
+    }
+
+    /**
+     * Chamada abandonada pelo chamador antes do resultado: não conta como sucesso nem falha;
+     * em HALF_OPEN só libera a vaga da chamada de teste.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        // Reflete a passagem do tempo mesmo sem chamadas novas
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void openIfThresholdReached() {
+        if (state == State.CLOSED && recorded >= minimumCalls && failures > 0
+                && failures * 100 >= failureRateThreshold * recorded) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize) {
+            if (outcomes[position]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % windowSize;
+    }
+
+    private void transitionTo(State next) {
+        if (state == next) {
+            return;
+        }
+        System.out.println("⚡ Circuit breaker " + name + ": " + state + " -> " + next);
+        state = next;
+        trialInFlight = false;
+        if (next == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        } else if (next == State.CLOSED) {
+            position = 0;
+            recorded = 0;
+            failures = 0;
+        }
+    }
+}
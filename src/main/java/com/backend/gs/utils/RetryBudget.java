@@ -0,0 +1,42 @@
+package com.backend.gs.utils;
+
+/**
+ * Orçamento global de retries (token bucket): cada chamada original deposita ratio tokens
+ * e cada retry consome um token inteiro. Assim os retries ficam limitados a ~ratio da carga
+ * normal (ex.: 0.1 = 10%) e não multiplicam o tráfego quando o serviço de destino está fora.
+ * O saldo é limitado a maxTokens, que funciona como a rajada máxima de retries.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    public RetryBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    /**
+     * Registra uma chamada original (não retry).
+     */
+    public synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * Tenta reservar um retry; false se o orçamento estiver esgotado.
+     */
+    public synchronized boolean tryWithdraw() {
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,77 @@
+-- ============================================
+-- Script de Migração: Chave Única em AUDIO_FILES
+-- ============================================
+-- Execute este script se você já tem tabelas criadas.
+-- Remove áudios duplicados (mesmo ID_JOB_REPORT + S3_PATH) gerados
+-- por callbacks repetidos e cria a constraint que impede novas duplicatas.
+-- A aplicação grava áudios ignorando duplicados por essa chave (hint IGNORE_ROW_ON_DUPKEY_INDEX).
+-- O índice da constraint começa por ID_JOB_REPORT, então IDX_AUDIO_FILES_JOB_REPORT fica redundante e é removido.
+
+SET SERVEROUTPUT ON;
+
+-- ============================================
+-- 1. REMOVER DUPLICATAS (MANTÉM O REGISTRO MAIS RECENTE)
+-- ============================================
+DECLARE
+    v_deleted NUMBER;
+BEGIN
+    DELETE FROM AUDIO_FILES
+    WHERE ROWID IN (
+        SELECT RID FROM (
+            SELECT ROWID AS RID,
+                   ROW_NUMBER() OVER (
+                       PARTITION BY ID_JOB_REPORT, S3_PATH
+                       ORDER BY CREATED_AT DESC, ID_AUDIO_FILE DESC
+                   ) AS RN
+            FROM AUDIO_FILES
+        )
+        WHERE RN > 1
+    );
+
+    v_deleted := SQL%ROWCOUNT;
+    DBMS_OUTPUT.PUT_LINE('✅ ' || v_deleted || ' áudio(s) duplicado(s) removido(s)');
+    COMMIT;
+END;
+/
+
+-- ============================================
+-- 2. CRIAR CONSTRAINT UNIQUE (ID_JOB_REPORT, S3_PATH)
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'ALTER TABLE AUDIO_FILES ADD CONSTRAINT UK_AUDIO_FILES_JOB_PATH 
+      UNIQUE (ID_JOB_REPORT, S3_PATH)';
+   DBMS_OUTPUT.PUT_LINE('✅ Constraint UK_AUDIO_FILES_JOB_PATH criada com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -2261 THEN  -- ORA-02261: such unique or primary key already exists in the table
+         DBMS_OUTPUT.PUT_LINE('⚠️  Constraint UK_AUDIO_FILES_JOB_PATH já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+-- ============================================
+-- 3. REMOVER ÍNDICE REDUNDANTE (ID_JOB_REPORT)
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'DROP INDEX IDX_AUDIO_FILES_JOB_REPORT';
+   DBMS_OUTPUT.PUT_LINE('✅ Índice IDX_AUDIO_FILES_JOB_REPORT removido');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -1418 THEN  -- ORA-01418: specified index does not exist
+         DBMS_OUTPUT.PUT_LINE('⚠️  Índice IDX_AUDIO_FILES_JOB_REPORT não existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+COMMIT;
+
+-- ============================================
+-- VERIFICAÇÃO
+-- ============================================
+-- Não deve retornar nenhuma linha:
+-- SELECT ID_JOB_REPORT, S3_PATH, COUNT(*) FROM AUDIO_FILES
+-- GROUP BY ID_JOB_REPORT, S3_PATH HAVING COUNT(*) > 1;
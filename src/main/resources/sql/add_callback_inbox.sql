@@ -0,0 +1,66 @@
+-- ============================================
+-- Script de Migração: Fila de Callbacks da Lambda
+-- ============================================
+-- Execute este script se você já tem tabelas criadas.
+-- Cria CALLBACK_INBOX: os callbacks audios-ready e report-ready são gravados
+-- e respondidos na hora, e o CallbackInboxService os aplica em segundo plano.
+
+SET SERVEROUTPUT ON;
+
+-- ============================================
+-- 1. CRIAR TABELA CALLBACK_INBOX
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'CREATE TABLE CALLBACK_INBOX (
+      ID_CALLBACK NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+      ID_JOB_REPORT NUMBER NOT NULL,
+      CALLBACK_TYPE VARCHAR2(20) NOT NULL,
+      PAYLOAD CLOB NOT NULL,
+      STATUS VARCHAR2(20) DEFAULT ''PENDING'' NOT NULL,
+      ATTEMPTS NUMBER DEFAULT 0 NOT NULL,
+      NEXT_ATTEMPT_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+      LAST_ERROR VARCHAR2(1000),
+      RECEIVED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+      APPLIED_AT TIMESTAMP,
+      CONSTRAINT FK_CALLBACK_INBOX_JOB_REPORT 
+         FOREIGN KEY (ID_JOB_REPORT) 
+         REFERENCES JOB_REPORT(ID_JOB_REPORT) 
+         ON DELETE CASCADE,
+      CONSTRAINT CK_CALLBACK_INBOX_TYPE 
+         CHECK (CALLBACK_TYPE IN (''AUDIOS_READY'', ''REPORT_READY'')),
+      CONSTRAINT CK_CALLBACK_INBOX_STATUS 
+         CHECK (STATUS IN (''PENDING'', ''APPLIED'', ''FAILED''))
+   )';
+   DBMS_OUTPUT.PUT_LINE('✅ Tabela CALLBACK_INBOX criada com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -955 THEN  -- ORA-00955: name is already used by an existing object
+         DBMS_OUTPUT.PUT_LINE('⚠️  Tabela CALLBACK_INBOX já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+-- ============================================
+-- 2. CRIAR ÍNDICE
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'CREATE INDEX IDX_CALLBACK_INBOX_PENDING ON CALLBACK_INBOX(STATUS, NEXT_ATTEMPT_AT)';
+   DBMS_OUTPUT.PUT_LINE('✅ Índice IDX_CALLBACK_INBOX_PENDING criado com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -955 THEN
+         DBMS_OUTPUT.PUT_LINE('⚠️  Índice IDX_CALLBACK_INBOX_PENDING já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+COMMIT;
+
+-- ============================================
+-- VERIFICAÇÃO
+-- ============================================
+-- SELECT STATUS, COUNT(*) FROM CALLBACK_INBOX GROUP BY STATUS;
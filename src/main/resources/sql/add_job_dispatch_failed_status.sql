@@ -0,0 +1,46 @@
+-- ============================================
+-- Script de Migração: Status DISPATCH_FAILED
+-- ============================================
+-- Execute este script se você já tem tabelas criadas.
+-- Permite o status final DISPATCH_FAILED em JOB_REPORT: o OutboxRelay marca o job
+-- assim quando desiste de enviá-lo para a Lambda, em vez de deixá-lo em PENDING.
+
+SET SERVEROUTPUT ON;
+
+-- ============================================
+-- 1. RECRIAR CONSTRAINT DE STATUS
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'ALTER TABLE JOB_REPORT DROP CONSTRAINT CK_JOB_REPORT_STATUS';
+   DBMS_OUTPUT.PUT_LINE('✅ Constraint CK_JOB_REPORT_STATUS antiga removida');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -2443 THEN  -- ORA-02443: cannot drop constraint - nonexistent constraint
+         DBMS_OUTPUT.PUT_LINE('⚠️  Constraint CK_JOB_REPORT_STATUS não existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'ALTER TABLE JOB_REPORT ADD CONSTRAINT CK_JOB_REPORT_STATUS 
+      CHECK (STATUS IN (''PENDING'', ''AUDIOS_READY'', ''REPORT_READY'', ''DISPATCH_FAILED''))';
+   DBMS_OUTPUT.PUT_LINE('✅ Constraint CK_JOB_REPORT_STATUS criada com sucesso');
+END;
+/
+
+-- ============================================
+-- 2. JOBS CUJO ENVIO JÁ FOI ABANDONADO
+-- ============================================
+UPDATE JOB_REPORT j SET STATUS = 'DISPATCH_FAILED'
+ WHERE STATUS = 'PENDING'
+   AND EXISTS (SELECT 1 FROM LAMBDA_OUTBOX o WHERE o.ID_JOB_REPORT = j.ID_JOB_REPORT AND o.STATUS = 'FAILED')
+   AND NOT EXISTS (SELECT 1 FROM LAMBDA_OUTBOX o WHERE o.ID_JOB_REPORT = j.ID_JOB_REPORT AND o.STATUS <> 'FAILED');
+
+COMMIT;
+
+-- ============================================
+-- VERIFICAÇÃO
+-- ============================================
+-- SELECT STATUS, COUNT(*) FROM JOB_REPORT GROUP BY STATUS;
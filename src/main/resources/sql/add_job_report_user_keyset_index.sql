@@ -0,0 +1,50 @@
+-- ============================================
+-- Script de Migração: Índice Composto IDX_JOB_REPORT_USER
+-- ============================================
+-- Execute este script se você já tem tabelas criadas.
+-- Recria IDX_JOB_REPORT_USER como (ID_USER, ID_JOB_REPORT) para a listagem
+-- paginada por cursor ("meus relatórios"): o Oracle percorre o índice a partir
+-- do cursor e para após uma página, sem ordenar o histórico do usuário.
+-- O índice composto continua atendendo às buscas só por ID_USER (FK).
+
+SET SERVEROUTPUT ON;
+
+-- ============================================
+-- 1. REMOVER ÍNDICE ANTIGO (ID_USER)
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'DROP INDEX IDX_JOB_REPORT_USER';
+   DBMS_OUTPUT.PUT_LINE('✅ Índice IDX_JOB_REPORT_USER removido');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -1418 THEN  -- ORA-01418: specified index does not exist
+         DBMS_OUTPUT.PUT_LINE('⚠️  Índice IDX_JOB_REPORT_USER não existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+-- ============================================
+-- 2. CRIAR ÍNDICE COMPOSTO (ID_USER, ID_JOB_REPORT)
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'CREATE INDEX IDX_JOB_REPORT_USER ON JOB_REPORT(ID_USER, ID_JOB_REPORT)';
+   DBMS_OUTPUT.PUT_LINE('✅ Índice IDX_JOB_REPORT_USER (ID_USER, ID_JOB_REPORT) criado com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -955 THEN  -- ORA-00955: name is already used by an existing object
+         DBMS_OUTPUT.PUT_LINE('⚠️  Índice IDX_JOB_REPORT_USER já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+COMMIT;
+
+-- ============================================
+-- VERIFICAÇÃO
+-- ============================================
+-- SELECT COLUMN_NAME, COLUMN_POSITION FROM USER_IND_COLUMNS
+-- WHERE INDEX_NAME = 'IDX_JOB_REPORT_USER' ORDER BY COLUMN_POSITION;
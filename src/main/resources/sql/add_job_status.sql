@@ -0,0 +1,113 @@
+-- ============================================
+-- Script de Migração: Status Materializado em JOB_REPORT
+-- ============================================
+-- Execute este script se você já tem tabelas criadas.
+-- Adiciona a coluna STATUS (PENDING -> AUDIOS_READY -> REPORT_READY),
+-- mantida pelos callbacks, e os timestamps de cada transição.
+
+SET SERVEROUTPUT ON;
+
+-- ============================================
+-- 1. ADICIONAR COLUNAS
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'ALTER TABLE JOB_REPORT ADD STATUS VARCHAR2(20) DEFAULT ''PENDING'' NOT NULL';
+   DBMS_OUTPUT.PUT_LINE('✅ Coluna STATUS adicionada com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -1430 THEN  -- ORA-01430: column being added already exists
+         DBMS_OUTPUT.PUT_LINE('⚠️  Coluna STATUS já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'ALTER TABLE JOB_REPORT ADD AUDIOS_READY_AT TIMESTAMP';
+   DBMS_OUTPUT.PUT_LINE('✅ Coluna AUDIOS_READY_AT adicionada com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -1430 THEN
+         DBMS_OUTPUT.PUT_LINE('⚠️  Coluna AUDIOS_READY_AT já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'ALTER TABLE JOB_REPORT ADD REPORT_READY_AT TIMESTAMP';
+   DBMS_OUTPUT.PUT_LINE('✅ Coluna REPORT_READY_AT adicionada com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -1430 THEN
+         DBMS_OUTPUT.PUT_LINE('⚠️  Coluna REPORT_READY_AT já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+-- ============================================
+-- 2. PREENCHER STATUS DOS REGISTROS EXISTENTES
+-- ============================================
+DECLARE
+    v_audios NUMBER;
+    v_reports NUMBER;
+BEGIN
+    UPDATE JOB_REPORT j
+    SET STATUS = 'AUDIOS_READY',
+        AUDIOS_READY_AT = (SELECT MIN(a.CREATED_AT) FROM AUDIO_FILES a WHERE a.ID_JOB_REPORT = j.ID_JOB_REPORT)
+    WHERE STATUS = 'PENDING'
+      AND EXISTS (SELECT 1 FROM AUDIO_FILES a WHERE a.ID_JOB_REPORT = j.ID_JOB_REPORT);
+    v_audios := SQL%ROWCOUNT;
+
+    UPDATE JOB_REPORT
+    SET STATUS = 'REPORT_READY',
+        REPORT_READY_AT = COALESCE(REPORT_READY_AT, CURRENT_TIMESTAMP)
+    WHERE REPORT_URL IS NOT NULL
+      AND STATUS <> 'REPORT_READY';
+    v_reports := SQL%ROWCOUNT;
+
+    DBMS_OUTPUT.PUT_LINE('✅ ' || v_audios || ' job(s) com áudios, ' || v_reports || ' job(s) com relatório');
+    COMMIT;
+END;
+/
+
+-- ============================================
+-- 3. CONSTRAINT E ÍNDICE
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'ALTER TABLE JOB_REPORT ADD CONSTRAINT CK_JOB_REPORT_STATUS 
+      CHECK (STATUS IN (''PENDING'', ''AUDIOS_READY'', ''REPORT_READY''))';
+   DBMS_OUTPUT.PUT_LINE('✅ Constraint CK_JOB_REPORT_STATUS criada com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -2264 THEN  -- ORA-02264: name already used by an existing constraint
+         DBMS_OUTPUT.PUT_LINE('⚠️  Constraint CK_JOB_REPORT_STATUS já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'CREATE INDEX IDX_JOB_REPORT_STATUS ON JOB_REPORT(STATUS)';
+   DBMS_OUTPUT.PUT_LINE('✅ Índice IDX_JOB_REPORT_STATUS criado com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -955 THEN  -- ORA-00955: name is already used by an existing object
+         DBMS_OUTPUT.PUT_LINE('⚠️  Índice IDX_JOB_REPORT_STATUS já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+COMMIT;
+
+-- ============================================
+-- VERIFICAÇÃO
+-- ============================================
+-- SELECT STATUS, COUNT(*) FROM JOB_REPORT GROUP BY STATUS;
@@ -0,0 +1,64 @@
+-- ============================================
+-- Script de Migração: Outbox de Envios para a Lambda
+-- ============================================
+-- Execute este script se você já tem tabelas criadas.
+-- Cria LAMBDA_OUTBOX: o /create grava o JOB_REPORT e o envio para a Lambda
+-- na mesma transação, e o OutboxRelay entrega (com retries) o que ficar pendente.
+
+SET SERVEROUTPUT ON;
+
+-- ============================================
+-- 1. CRIAR TABELA LAMBDA_OUTBOX
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'CREATE TABLE LAMBDA_OUTBOX (
+      ID_OUTBOX NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+      ID_JOB_REPORT NUMBER NOT NULL,
+      ENDPOINT VARCHAR2(30) NOT NULL,
+      PAYLOAD CLOB NOT NULL,
+      STATUS VARCHAR2(20) DEFAULT ''PENDING'' NOT NULL,
+      ATTEMPTS NUMBER DEFAULT 0 NOT NULL,
+      NEXT_ATTEMPT_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+      LAST_ERROR VARCHAR2(1000),
+      CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+      DELIVERED_AT TIMESTAMP,
+      CONSTRAINT FK_LAMBDA_OUTBOX_JOB_REPORT 
+         FOREIGN KEY (ID_JOB_REPORT) 
+         REFERENCES JOB_REPORT(ID_JOB_REPORT) 
+         ON DELETE CASCADE,
+      CONSTRAINT CK_LAMBDA_OUTBOX_STATUS 
+         CHECK (STATUS IN (''PENDING'', ''DELIVERED'', ''FAILED''))
+   )';
+   DBMS_OUTPUT.PUT_LINE('✅ Tabela LAMBDA_OUTBOX criada com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -955 THEN  -- ORA-00955: name is already used by an existing object
+         DBMS_OUTPUT.PUT_LINE('⚠️  Tabela LAMBDA_OUTBOX já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+-- ============================================
+-- 2. CRIAR ÍNDICE
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'CREATE INDEX IDX_LAMBDA_OUTBOX_PENDING ON LAMBDA_OUTBOX(STATUS, NEXT_ATTEMPT_AT)';
+   DBMS_OUTPUT.PUT_LINE('✅ Índice IDX_LAMBDA_OUTBOX_PENDING criado com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -955 THEN
+         DBMS_OUTPUT.PUT_LINE('⚠️  Índice IDX_LAMBDA_OUTBOX_PENDING já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+COMMIT;
+
+-- ============================================
+-- VERIFICAÇÃO
+-- ============================================
+-- SELECT STATUS, COUNT(*) FROM LAMBDA_OUTBOX GROUP BY STATUS;
@@ -0,0 +1,85 @@
+-- ============================================
+-- Script de Migração: Agenda de Verificação de Relatórios
+-- ============================================
+-- Execute este script se você já tem tabelas criadas.
+-- Persiste em JOB_REPORT o backoff do ReportReadinessPoller (NEXT_CHECK_AT, CHECK_ATTEMPTS),
+-- para que o poller busque só os jobs vencidos, dos mais antigos para os mais novos.
+-- O novo índice (STATUS, NEXT_CHECK_AT) substitui IDX_JOB_REPORT_STATUS, que é removido.
+
+SET SERVEROUTPUT ON;
+
+-- ============================================
+-- 1. ADICIONAR COLUNAS
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'ALTER TABLE JOB_REPORT ADD NEXT_CHECK_AT TIMESTAMP';
+   DBMS_OUTPUT.PUT_LINE('✅ Coluna NEXT_CHECK_AT adicionada com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -1430 THEN  -- ORA-01430: column being added already exists
+         DBMS_OUTPUT.PUT_LINE('⚠️  Coluna NEXT_CHECK_AT já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'ALTER TABLE JOB_REPORT ADD CHECK_ATTEMPTS NUMBER DEFAULT 0 NOT NULL';
+   DBMS_OUTPUT.PUT_LINE('✅ Coluna CHECK_ATTEMPTS adicionada com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -1430 THEN
+         DBMS_OUTPUT.PUT_LINE('⚠️  Coluna CHECK_ATTEMPTS já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+-- ============================================
+-- 2. AGENDAR OS JOBS QUE JÁ AGUARDAM RELATÓRIO
+-- ============================================
+UPDATE JOB_REPORT
+   SET NEXT_CHECK_AT = COALESCE(AUDIOS_READY_AT, CURRENT_TIMESTAMP)
+ WHERE STATUS = 'AUDIOS_READY' AND NEXT_CHECK_AT IS NULL;
+
+COMMIT;
+
+-- ============================================
+-- 3. CRIAR ÍNDICE
+-- ============================================
+BEGIN
+   EXECUTE IMMEDIATE 'CREATE INDEX IDX_JOB_REPORT_NEXT_CHECK ON JOB_REPORT(STATUS, NEXT_CHECK_AT)';
+   DBMS_OUTPUT.PUT_LINE('✅ Índice IDX_JOB_REPORT_NEXT_CHECK criado com sucesso');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -955 THEN  -- ORA-00955: name is already used by an existing object
+         DBMS_OUTPUT.PUT_LINE('⚠️  Índice IDX_JOB_REPORT_NEXT_CHECK já existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+-- ============================================
+-- 4. REMOVER ÍNDICE REDUNDANTE (STATUS)
+-- ============================================
+-- IDX_JOB_REPORT_NEXT_CHECK começa por STATUS e atende as mesmas consultas
+BEGIN
+   EXECUTE IMMEDIATE 'DROP INDEX IDX_JOB_REPORT_STATUS';
+   DBMS_OUTPUT.PUT_LINE('✅ Índice IDX_JOB_REPORT_STATUS removido');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -1418 THEN  -- ORA-01418: specified index does not exist
+         DBMS_OUTPUT.PUT_LINE('⚠️  Índice IDX_JOB_REPORT_STATUS não existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+-- ============================================
+-- VERIFICAÇÃO
+-- ============================================
+-- SELECT ID_JOB_REPORT, NEXT_CHECK_AT, CHECK_ATTEMPTS FROM JOB_REPORT WHERE STATUS = 'AUDIOS_READY' ORDER BY NEXT_CHECK_AT;
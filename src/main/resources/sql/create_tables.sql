@@ -33,16 +33,28 @@ CREATE TABLE JOB_REPORT (
    DESCRIPTION CLOB NOT NULL,
    SESSION_ID VARCHAR2(100),
    REPORT_URL VARCHAR2(2000),
+   -- Status mantido pelos callbacks: PENDING -> AUDIOS_READY -> REPORT_READY
+   -- (ou PENDING -> DISPATCH_FAILED quando o envio para a Lambda é abandonado)
+   STATUS VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+   AUDIOS_READY_AT TIMESTAMP,
+   REPORT_READY_AT TIMESTAMP,
+   -- Próxima verificação do relatório pelo ReportReadinessPoller (backoff persistido)
+   NEXT_CHECK_AT TIMESTAMP,
+   CHECK_ATTEMPTS NUMBER DEFAULT 0 NOT NULL,
    CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
    CONSTRAINT FK_JOB_REPORT_USER 
       FOREIGN KEY (ID_USER) 
       REFERENCES USERS(ID) 
-      ON DELETE CASCADE
+      ON DELETE CASCADE,
+   CONSTRAINT CK_JOB_REPORT_STATUS 
+      CHECK (STATUS IN ('PENDING', 'AUDIOS_READY', 'REPORT_READY', 'DISPATCH_FAILED'))
 );
 
 -- Índices para melhorar performance
-CREATE INDEX IDX_JOB_REPORT_USER ON JOB_REPORT(ID_USER);
+CREATE INDEX IDX_JOB_REPORT_USER ON JOB_REPORT(ID_USER, ID_JOB_REPORT);
 CREATE INDEX IDX_JOB_REPORT_SESSION_ID ON JOB_REPORT(SESSION_ID);
+-- Começa por STATUS, então também atende as consultas só por status
+CREATE INDEX IDX_JOB_REPORT_NEXT_CHECK ON JOB_REPORT(STATUS, NEXT_CHECK_AT);
 
 -- ============================================
 -- 3. CRIAR TABELA AUDIO_FILES
@@ -57,17 +69,76 @@ CREATE TABLE AUDIO_FILES (
    CONSTRAINT FK_AUDIO_FILES_JOB_REPORT 
       FOREIGN KEY (ID_JOB_REPORT) 
       REFERENCES JOB_REPORT(ID_JOB_REPORT) 
-      ON DELETE CASCADE
+      ON DELETE CASCADE,
+   -- Callbacks repetidos não duplicam áudios (INSERT com IGNORE_ROW_ON_DUPKEY_INDEX).
+   -- O índice da constraint começa por ID_JOB_REPORT e já atende as consultas por job
+   CONSTRAINT UK_AUDIO_FILES_JOB_PATH 
+      UNIQUE (ID_JOB_REPORT, S3_PATH)
 );
 
--- Índice para melhorar performance nas consultas por ID_JOB_REPORT
-CREATE INDEX IDX_AUDIO_FILES_JOB_REPORT ON AUDIO_FILES(ID_JOB_REPORT);
+-- ============================================
+-- 4. CRIAR TABELA LAMBDA_OUTBOX
+-- ============================================
+-- Envios pendentes para a Lambda, gravados na mesma transação do JOB_REPORT
+-- e entregues pelo OutboxRelay (com retries)
+CREATE TABLE LAMBDA_OUTBOX (
+   ID_OUTBOX NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+   ID_JOB_REPORT NUMBER NOT NULL,
+   ENDPOINT VARCHAR2(30) NOT NULL,
+   PAYLOAD CLOB NOT NULL,
+   STATUS VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+   ATTEMPTS NUMBER DEFAULT 0 NOT NULL,
+   NEXT_ATTEMPT_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+   LAST_ERROR VARCHAR2(1000),
+   CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+   DELIVERED_AT TIMESTAMP,
+   CONSTRAINT FK_LAMBDA_OUTBOX_JOB_REPORT 
+      FOREIGN KEY (ID_JOB_REPORT) 
+      REFERENCES JOB_REPORT(ID_JOB_REPORT) 
+      ON DELETE CASCADE,
+   CONSTRAINT CK_LAMBDA_OUTBOX_STATUS 
+      CHECK (STATUS IN ('PENDING', 'DELIVERED', 'FAILED'))
+);
+
+-- Índice para o relay buscar os envios vencidos
+CREATE INDEX IDX_LAMBDA_OUTBOX_PENDING ON LAMBDA_OUTBOX(STATUS, NEXT_ATTEMPT_AT);
+
+-- ============================================
+-- 5. CRIAR TABELA CALLBACK_INBOX
+-- ============================================
+-- Callbacks da Lambda (audios-ready, report-ready) aceitos pela API e aplicados
+-- em segundo plano pelo CallbackInboxService
+CREATE TABLE CALLBACK_INBOX (
+   ID_CALLBACK NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+   ID_JOB_REPORT NUMBER NOT NULL,
+   CALLBACK_TYPE VARCHAR2(20) NOT NULL,
+   PAYLOAD CLOB NOT NULL,
+   STATUS VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+   ATTEMPTS NUMBER DEFAULT 0 NOT NULL,
+   NEXT_ATTEMPT_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+   LAST_ERROR VARCHAR2(1000),
+   RECEIVED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+   APPLIED_AT TIMESTAMP,
+   CONSTRAINT FK_CALLBACK_INBOX_JOB_REPORT 
+      FOREIGN KEY (ID_JOB_REPORT) 
+      REFERENCES JOB_REPORT(ID_JOB_REPORT) 
+      ON DELETE CASCADE,
+   CONSTRAINT CK_CALLBACK_INBOX_TYPE 
+      CHECK (CALLBACK_TYPE IN ('AUDIOS_READY', 'REPORT_READY')),
+   CONSTRAINT CK_CALLBACK_INBOX_STATUS 
+      CHECK (STATUS IN ('PENDING', 'APPLIED', 'FAILED'))
+);
+
+-- Índice para o worker buscar os callbacks vencidos
+CREATE INDEX IDX_CALLBACK_INBOX_PENDING ON CALLBACK_INBOX(STATUS, NEXT_ATTEMPT_AT);
 
 -- ============================================
 -- RELACIONAMENTOS
 -- ============================================
 -- USERS 1:N JOB_REPORT (Um usuário pode ter vários relatórios)
 -- JOB_REPORT 1:N AUDIO_FILES (Um relatório pode ter vários áudios)
+-- JOB_REPORT 1:N LAMBDA_OUTBOX (Envios do relatório para a Lambda)
+-- JOB_REPORT 1:N CALLBACK_INBOX (Callbacks da Lambda ainda não aplicados)
 
 COMMIT;
 
@@ -10,6 +10,32 @@
 -- ============================================
 
 -- Dropar tabelas na ordem correta (devido às foreign keys)
+BEGIN
+   EXECUTE IMMEDIATE 'DROP TABLE CALLBACK_INBOX CASCADE CONSTRAINTS';
+   DBMS_OUTPUT.PUT_LINE('✅ Tabela CALLBACK_INBOX dropada');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -942 THEN
+         DBMS_OUTPUT.PUT_LINE('⚠️  Tabela CALLBACK_INBOX não existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'DROP TABLE LAMBDA_OUTBOX CASCADE CONSTRAINTS';
+   DBMS_OUTPUT.PUT_LINE('✅ Tabela LAMBDA_OUTBOX dropada');
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE = -942 THEN
+         DBMS_OUTPUT.PUT_LINE('⚠️  Tabela LAMBDA_OUTBOX não existe');
+      ELSE
+         RAISE;
+      END IF;
+END;
+/
+
 BEGIN
    EXECUTE IMMEDIATE 'DROP TABLE AUDIO_FILES CASCADE CONSTRAINTS';
    DBMS_OUTPUT.PUT_LINE('✅ Tabela AUDIO_FILES dropada');
@@ -73,11 +99,21 @@ CREATE TABLE JOB_REPORT (
    DESCRIPTION CLOB NOT NULL,
    SESSION_ID VARCHAR2(100),
    REPORT_URL VARCHAR2(2000),
+   -- Status mantido pelos callbacks: PENDING -> AUDIOS_READY -> REPORT_READY
+   -- (ou PENDING -> DISPATCH_FAILED quando o envio para a Lambda é abandonado)
+   STATUS VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+   AUDIOS_READY_AT TIMESTAMP,
+   REPORT_READY_AT TIMESTAMP,
+   -- Próxima verificação do relatório pelo ReportReadinessPoller (backoff persistido)
+   NEXT_CHECK_AT TIMESTAMP,
+   CHECK_ATTEMPTS NUMBER DEFAULT 0 NOT NULL,
    CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
    CONSTRAINT FK_JOB_REPORT_USER 
       FOREIGN KEY (ID_USER) 
       REFERENCES USERS(ID) 
-      ON DELETE CASCADE
+      ON DELETE CASCADE,
+   CONSTRAINT CK_JOB_REPORT_STATUS 
+      CHECK (STATUS IN ('PENDING', 'AUDIOS_READY', 'REPORT_READY', 'DISPATCH_FAILED'))
 );
 
 DBMS_OUTPUT.PUT_LINE('✅ Tabela JOB_REPORT criada');
@@ -92,11 +128,60 @@ CREATE TABLE AUDIO_FILES (
    CONSTRAINT FK_AUDIO_FILES_JOB_REPORT 
       FOREIGN KEY (ID_JOB_REPORT) 
       REFERENCES JOB_REPORT(ID_JOB_REPORT) 
-      ON DELETE CASCADE
+      ON DELETE CASCADE,
+   -- Callbacks repetidos não duplicam áudios (INSERT com IGNORE_ROW_ON_DUPKEY_INDEX)
+   CONSTRAINT UK_AUDIO_FILES_JOB_PATH 
+      UNIQUE (ID_JOB_REPORT, S3_PATH)
 );
 
 DBMS_OUTPUT.PUT_LINE('✅ Tabela AUDIO_FILES criada');
 
+-- 4. Criar tabela LAMBDA_OUTBOX
+CREATE TABLE LAMBDA_OUTBOX (
+   ID_OUTBOX NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+   ID_JOB_REPORT NUMBER NOT NULL,
+   ENDPOINT VARCHAR2(30) NOT NULL,
+   PAYLOAD CLOB NOT NULL,
+   STATUS VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+   ATTEMPTS NUMBER DEFAULT 0 NOT NULL,
+   NEXT_ATTEMPT_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+   LAST_ERROR VARCHAR2(1000),
+   CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+   DELIVERED_AT TIMESTAMP,
+   CONSTRAINT FK_LAMBDA_OUTBOX_JOB_REPORT 
+      FOREIGN KEY (ID_JOB_REPORT) 
+      REFERENCES JOB_REPORT(ID_JOB_REPORT) 
+      ON DELETE CASCADE,
+   CONSTRAINT CK_LAMBDA_OUTBOX_STATUS 
+      CHECK (STATUS IN ('PENDING', 'DELIVERED', 'FAILED'))
+);
+
+DBMS_OUTPUT.PUT_LINE('✅ Tabela LAMBDA_OUTBOX criada');
+
+-- 5. Criar tabela CALLBACK_INBOX
+CREATE TABLE CALLBACK_INBOX (
+   ID_CALLBACK NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+   ID_JOB_REPORT NUMBER NOT NULL,
+   CALLBACK_TYPE VARCHAR2(20) NOT NULL,
+   PAYLOAD CLOB NOT NULL,
+   STATUS VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+   ATTEMPTS NUMBER DEFAULT 0 NOT NULL,
+   NEXT_ATTEMPT_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+   LAST_ERROR VARCHAR2(1000),
+   RECEIVED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+   APPLIED_AT TIMESTAMP,
+   CONSTRAINT FK_CALLBACK_INBOX_JOB_REPORT 
+      FOREIGN KEY (ID_JOB_REPORT) 
+      REFERENCES JOB_REPORT(ID_JOB_REPORT) 
+      ON DELETE CASCADE,
+   CONSTRAINT CK_CALLBACK_INBOX_TYPE 
+      CHECK (CALLBACK_TYPE IN ('AUDIOS_READY', 'REPORT_READY')),
+   CONSTRAINT CK_CALLBACK_INBOX_STATUS 
+      CHECK (STATUS IN ('PENDING', 'APPLIED', 'FAILED'))
+);
+
+DBMS_OUTPUT.PUT_LINE('✅ Tabela CALLBACK_INBOX criada');
+
 -- ============================================
 -- PARTE 3: CREATE INDEXES
 -- ============================================
@@ -106,11 +191,18 @@ CREATE INDEX IDX_USERS_USERNAME ON USERS(USERNAME);
 CREATE INDEX IDX_USERS_EMAIL ON USERS(EMAIL);
 
 -- Índices para JOB_REPORT
-CREATE INDEX IDX_JOB_REPORT_USER ON JOB_REPORT(ID_USER);
+CREATE INDEX IDX_JOB_REPORT_USER ON JOB_REPORT(ID_USER, ID_JOB_REPORT);
 CREATE INDEX IDX_JOB_REPORT_SESSION_ID ON JOB_REPORT(SESSION_ID);
+-- Começa por STATUS, então também atende as consultas só por status
+CREATE INDEX IDX_JOB_REPORT_NEXT_CHECK ON JOB_REPORT(STATUS, NEXT_CHECK_AT);
+
+-- AUDIO_FILES: as consultas por ID_JOB_REPORT usam o índice de UK_AUDIO_FILES_JOB_PATH
+
+-- Índices para LAMBDA_OUTBOX
+CREATE INDEX IDX_LAMBDA_OUTBOX_PENDING ON LAMBDA_OUTBOX(STATUS, NEXT_ATTEMPT_AT);
 
--- Índices para AUDIO_FILES
-CREATE INDEX IDX_AUDIO_FILES_JOB_REPORT ON AUDIO_FILES(ID_JOB_REPORT);
+-- Índices para CALLBACK_INBOX
+CREATE INDEX IDX_CALLBACK_INBOX_PENDING ON CALLBACK_INBOX(STATUS, NEXT_ATTEMPT_AT);
 
 DBMS_OUTPUT.PUT_LINE('✅ Índices criados');
 
@@ -129,8 +221,12 @@ DBMS_OUTPUT.PUT_LINE('Tabelas criadas:');
 DBMS_OUTPUT.PUT_LINE('  1. USERS (usuários do sistema)');
 DBMS_OUTPUT.PUT_LINE('  2. JOB_REPORT (relatórios de vagas)');
 DBMS_OUTPUT.PUT_LINE('  3. AUDIO_FILES (arquivos de áudio)');
+DBMS_OUTPUT.PUT_LINE('  4. LAMBDA_OUTBOX (envios pendentes para a Lambda)');
+DBMS_OUTPUT.PUT_LINE('  5. CALLBACK_INBOX (callbacks da Lambda a aplicar)');
 DBMS_OUTPUT.PUT_LINE('');
 DBMS_OUTPUT.PUT_LINE('Relacionamentos:');
 DBMS_OUTPUT.PUT_LINE('  USERS 1:N JOB_REPORT');
 DBMS_OUTPUT.PUT_LINE('  JOB_REPORT 1:N AUDIO_FILES');
+DBMS_OUTPUT.PUT_LINE('  JOB_REPORT 1:N LAMBDA_OUTBOX');
+DBMS_OUTPUT.PUT_LINE('  JOB_REPORT 1:N CALLBACK_INBOX');
 
@@ -0,0 +1,129 @@
+package com.backend.gs.dao;
+
+import com.backend.gs.database.OracleConnection;
+import com.backend.gs.model.JobReport;
+import com.backend.gs.model.JobReportStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica que o save lê o ID e o CREATED_AT do próprio INSERT (getGeneratedKeys) e não faz
+ * SELECT de releitura. Não é um teste de concorrência contra o banco: o driver é simulado
+ * (cada conexão é uma sessão e a IDENTITY é um contador compartilhado). Os INSERTs paralelos
+ * terminam todos antes de qualquer leitura de chave, o intercalamento em que a antiga releitura
+ * (SELECT ... FETCH FIRST 1 ROWS ONLY) devolvia o ID de outra sessão.
+ */
+class JobReportDaoGeneratedKeysTest {
+
+    private static final int PARALLEL_INSERTS = 16;
+
+    private final AtomicLong identity = new AtomicLong(1000);
+    private final CyclicBarrier allInserted = new CyclicBarrier(PARALLEL_INSERTS);
+    private final List<Connection> connections = new ArrayList<>();
+
+    private JobReportDao jobReportDao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        OracleConnection oracleConnection = mock(OracleConnection.class);
+        when(oracleConnection.getConnection()).thenAnswer(invocation -> newSession());
+
+        jobReportDao = new JobReportDao();
+        ReflectionTestUtils.setField(jobReportDao, "oracleConnection", oracleConnection);
+    }
+
+    @Test
+    void save_readsKeysFromItsOwnInsertWithoutReselect() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_INSERTS);
+        try {
+            List<Future<JobReport>> futures = new ArrayList<>();
+            for (int i = 0; i < PARALLEL_INSERTS; i++) {
+                JobReport jobReport = newJobReport();
+                futures.add(executor.submit(() -> jobReportDao.save(jobReport)));
+            }
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<JobReport> future : futures) {
+                JobReport saved = future.get(10, TimeUnit.SECONDS);
+                ids.add(saved.getIdJobReport());
+                assertEquals(new Timestamp(saved.getIdJobReport()), saved.getCreatedAt());
+                assertSame(JobReportStatus.PENDING, saved.getStatus());
+            }
+
+            assertEquals(PARALLEL_INSERTS, ids.size());
+            assertEquals(PARALLEL_INSERTS, identity.get() - 1000);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Um único round-trip por save: nenhum SELECT para recuperar o ID
+        for (Connection conn : connections) {
+            verify(conn, never()).prepareStatement(anyString());
+        }
+    }
+
+    /**
+     * Uma sessão simulada: o INSERT consome o próximo valor da IDENTITY e o getGeneratedKeys
+     * devolve esse valor (e um CREATED_AT derivado dele) só para o statement que o gerou.
+     */
+    private synchronized Connection newSession() throws Exception {
+        Connection conn = mock(Connection.class);
+        connections.add(conn);
+
+        when(conn.prepareStatement(anyString(), any(String[].class))).thenAnswer(invocation -> {
+            assertArrayEquals(new String[]{"ID_JOB_REPORT", "CREATED_AT"}, invocation.getArgument(1, String[].class));
+
+            AtomicLong generated = new AtomicLong();
+            PreparedStatement stmt = mock(PreparedStatement.class);
+            when(stmt.executeUpdate()).thenAnswer(update -> {
+                generated.set(identity.incrementAndGet());
+                allInserted.await(10, TimeUnit.SECONDS);
+                return 1;
+            });
+            when(stmt.getGeneratedKeys()).thenAnswer(keys -> {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.next()).thenReturn(true, false);
+                when(rs.getLong(1)).thenReturn(generated.get());
+                when(rs.getTimestamp(2)).thenReturn(new Timestamp(generated.get()));
+                return rs;
+            });
+            return stmt;
+        });
+        return conn;
+    }
+
+    private static JobReport newJobReport() {
+        JobReport jobReport = new JobReport();
+        jobReport.setIdUser(1L);
+        jobReport.setCompany("FIAP");
+        jobReport.setTitle("Desenvolvedor Java");
+        jobReport.setDescription("Vaga de backend");
+        return jobReport;
+    }
+}